@@ -15,6 +15,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Util denoting relevant information about pending effects and active timed effects.
@@ -22,25 +23,31 @@ import java.util.concurrent.TimeUnit;
 final class ActiveEffect {
 	private static final Logger log = LoggerFactory.getLogger("CrowdControl/ActiveEffect");
 	private final @NotNull CrowdControl cc;
-	private final @NotNull CCEffect effect;
+	private final @NotNull Supplier<@NotNull CCEffect> supplier;
+	private volatile @Nullable CCEffect effect;
 	private final @NotNull PublicEffectPayload payload;
 	private final @NotNull ConnectedPlayer player;
-	private @Nullable ScheduledFuture<?> completer;
-	private @Nullable Instant startedAt;
-	private long timeRemaining = -1;
+	private final @NotNull ExecutionPolicy policy;
+	private final @Nullable Object lane;
+	private volatile @Nullable ScheduledFuture<?> completer;
+	private volatile @Nullable Instant startedAt;
+	private volatile long timeRemaining = -1;
 	private @Nullable CompletableFuture<Void> responseFuture;
-	private @Nullable Future<?> responseThread;
+	private volatile @Nullable Future<?> responseThread;
 	private @Nullable ScheduledFuture<?> responseTimeout;
 	private boolean completed = false;
 
 	public ActiveEffect(@NotNull CrowdControl cc,
-						@NotNull CCEffect effect,
+						@NotNull Supplier<@NotNull CCEffect> supplier,
 						@NotNull PublicEffectPayload payload,
-						@NotNull ConnectedPlayer player) {
+						@NotNull ConnectedPlayer player,
+						@NotNull ExecutionPolicy policy) {
 		this.cc = cc;
-		this.effect = effect;
+		this.supplier = supplier;
 		this.payload = payload;
 		this.player = player;
+		this.policy = policy;
+		this.lane = policy.getLane(payload.getEffect().getEffectId(), player.getUuid());
 	}
 
 	public @NotNull PublicEffectPayload getPayload() {
@@ -64,13 +71,24 @@ final class ActiveEffect {
 		return timeRemaining <= 0;
 	}
 
+	/**
+	 * Gets the time in milliseconds until this effect ends.
+	 *
+	 * @return remaining milliseconds
+	 */
+	public long getTimeRemaining() {
+		ScheduledFuture<?> completer = this.completer;
+		if (completer == null || isPaused()) return Math.max(0, timeRemaining);
+		return Math.max(0, completer.getDelay(TimeUnit.MILLISECONDS));
+	}
+
 	public @Nullable Future<?> getCompleter() {
 		return completer;
 	}
 
-	public void scheduleCompleter(long timeRemaining) {
+	public synchronized void scheduleCompleter(long timeRemaining) {
 		this.timeRemaining = timeRemaining;
-		setCompleter(cc.getTimedEffectPool().schedule(this::complete, timeRemaining, TimeUnit.MILLISECONDS));
+		setCompleter(cc.getTimer().schedule(this::complete, timeRemaining, TimeUnit.MILLISECONDS));
 	}
 
 	private void setCompleter(@Nullable ScheduledFuture<?> completer) {
@@ -83,7 +101,7 @@ final class ActiveEffect {
 			: null;
 	}
 
-	public void complete() {
+	public synchronized void complete() {
 		if (completed) return;
 		completed = true;
 		timeRemaining = 0;
@@ -97,15 +115,15 @@ final class ActiveEffect {
 			log.error("Failed to send response", e);
 		}
 
-		if (!(effect instanceof CCTimedEffect)) return;
+		if (!(effect instanceof CCTimedEffect timedEffect)) return;
 		try {
-			((CCTimedEffect) effect).onEnd(payload, player);
+			timedEffect.onEnd(payload, player);
 		} catch (Exception e) {
 			log.error("Failed to invoke {} end handler for request {}", payload.getEffect().getEffectId(), payload.getRequestId());
 		}
 	}
 
-	public void pause() {
+	public synchronized void pause() {
 		if (isCompleted()) return;
 		if (isPaused()) return;
 
@@ -120,15 +138,15 @@ final class ActiveEffect {
 			timeRemaining
 		));
 
-		if (!(effect instanceof CCTimedEffect)) return;
+		if (!(effect instanceof CCTimedEffect timedEffect)) return;
 		try {
-			((CCTimedEffect) effect).onPause(payload, player);
+			timedEffect.onPause(payload, player);
 		} catch (Exception e) {
 			log.error("Failed to invoke {} pause handler for request {}", payload.getEffect().getEffectId(), payload.getRequestId());
 		}
 	}
 
-	public void resume() {
+	public synchronized void resume() {
 		if (isCompleted()) return;
 		if (!isPaused()) return;
 
@@ -140,9 +158,9 @@ final class ActiveEffect {
 			timeRemaining
 		));
 
-		if (!(effect instanceof CCTimedEffect)) return;
+		if (!(effect instanceof CCTimedEffect timedEffect)) return;
 		try {
-			((CCTimedEffect) effect).onResume(payload, player);
+			timedEffect.onResume(payload, player);
 		} catch (Exception e) {
 			log.error("Failed to invoke {} resume handler for request {}", payload.getEffect().getEffectId(), payload.getRequestId());
 		}
@@ -172,7 +190,32 @@ final class ActiveEffect {
 		this.responseTimeout = responseTimeout;
 	}
 
-	public @NotNull CCEffect getEffect() {
+	/**
+	 * Gets the effect handling this request, or null if it has not yet been loaded.
+	 *
+	 * @return effect
+	 */
+	public @Nullable CCEffect getEffect() {
 		return effect;
 	}
+
+	/**
+	 * Loads the effect handling this request from its supplier.
+	 * This is called on the thread which runs the effect, keeping user code off the thread which received the request.
+	 *
+	 * @return effect
+	 */
+	public @NotNull CCEffect loadEffect() {
+		CCEffect effect = supplier.get();
+		this.effect = effect;
+		return effect;
+	}
+
+	public @NotNull ExecutionPolicy getPolicy() {
+		return policy;
+	}
+
+	public @Nullable Object getLane() {
+		return lane;
+	}
 }
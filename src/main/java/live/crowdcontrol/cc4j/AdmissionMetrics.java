@@ -0,0 +1,14 @@
+package live.crowdcontrol.cc4j;
+
+/**
+ * A snapshot of how incoming effect requests have been admitted.
+ *
+ * @param admitted number of requests which started immediately
+ * @param queued   number of requests which had to wait for a free slot before starting
+ * @param rejected number of requests which were refused because every slot and queue position was taken
+ * @param running  number of effects currently executing
+ * @param waiting  number of requests currently waiting for a free slot
+ * @see CrowdControl#getAdmissionMetrics()
+ */
+public record AdmissionMetrics(long admitted, long queued, long rejected, int running, int waiting) {
+}
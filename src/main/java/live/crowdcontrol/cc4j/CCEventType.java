@@ -2,22 +2,35 @@ package live.crowdcontrol.cc4j;
 
 import io.leangen.geantyref.TypeToken;
 import live.crowdcontrol.cc4j.util.CloseData;
+import live.crowdcontrol.cc4j.util.RecoveryData;
 import live.crowdcontrol.cc4j.websocket.data.CCEffectResponse;
 import live.crowdcontrol.cc4j.websocket.http.GameSessionStartPayload;
 import live.crowdcontrol.cc4j.websocket.http.GameSessionStopPayload;
 import live.crowdcontrol.cc4j.websocket.payload.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 // TODO: completely refactor this to be a standalone object
 public class CCEventType<T> {
+	/**
+	 * Ordinals assigned to each distinct event type, keyed by listener ID and type token.
+	 */
+	private static final @NotNull Map<List<Object>, Integer> ORDINALS = new HashMap<>();
 	private final @NotNull String listenerId;
 	private final @NotNull TypeToken<T> typeToken;
+	private final int ordinal;
 
 	public CCEventType(@NotNull String listenerId, @NotNull TypeToken<T> typeToken) {
 		this.listenerId = listenerId;
 		this.typeToken = typeToken;
+		this.ordinal = assignOrdinal(listenerId, typeToken);
+	}
+
+	private static synchronized int assignOrdinal(@NotNull String listenerId, @NotNull TypeToken<?> typeToken) {
+		return ORDINALS.computeIfAbsent(List.of(listenerId, typeToken), $ -> ORDINALS.size());
 	}
 
 	public CCEventType(@NotNull String listenerId, @NotNull Class<T> clazz) {
@@ -36,17 +49,37 @@ public class CCEventType<T> {
 		return typeToken;
 	}
 
+	/**
+	 * Gets the ordinal of this event type.
+	 * Ordinals are assigned sequentially from 0 and are shared by all equal event types,
+	 * so they may be used to index per-event arrays.
+	 *
+	 * @return ordinal
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	/**
+	 * Gets the number of ordinals which have been assigned so far.
+	 *
+	 * @return ordinal count
+	 */
+	public static synchronized int getOrdinalCount() {
+		return ORDINALS.size();
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		CCEventType<?> that = (CCEventType<?>) o;
-		return Objects.equals(listenerId, that.listenerId) && Objects.equals(typeToken, that.typeToken);
+		return ordinal == that.ordinal;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(listenerId, typeToken);
+		return ordinal;
 	}
 
 	@Override
@@ -73,6 +106,12 @@ public class CCEventType<T> {
 	 */
 	public static final CCEventType<CloseData> DISCONNECTED = new CCEventType<>("disconnected", CloseData.class);
 
+	/**
+	 * Called when a player's connection has recovered from a disconnect,
+	 * once every subscription has been confirmed on the new connection.
+	 */
+	public static final CCEventType<RecoveryData> RECOVERED = new CCEventType<>("recovered", RecoveryData.class);
+
 	/**
 	 * Called when an auth code is generated.
 	 */
@@ -1,6 +1,7 @@
 package live.crowdcontrol.cc4j;
 
 import live.crowdcontrol.cc4j.util.EventManager;
+import live.crowdcontrol.cc4j.websocket.RoundTripStats;
 import live.crowdcontrol.cc4j.websocket.UserToken;
 import live.crowdcontrol.cc4j.websocket.data.CCEffectReport;
 import live.crowdcontrol.cc4j.websocket.data.CCEffectResponse;
@@ -66,6 +67,18 @@ public interface CCPlayer {
 	@NotNull
 	EventManager getEventManager();
 
+	/**
+	 * Gets the round-trip latency of the player's connection, as measured by keepalive pings.
+	 * Players sharing a socket share the same stats.
+	 * Implementations which do not measure latency report {@link RoundTripStats#EMPTY}.
+	 *
+	 * @return round-trip stats
+	 */
+	@NotNull
+	default RoundTripStats getRoundTripStats() {
+		return RoundTripStats.EMPTY;
+	}
+
 	/**
 	 * Sends an effect response to the WebSocket.
 	 *
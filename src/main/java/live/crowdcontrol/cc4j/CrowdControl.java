@@ -1,8 +1,14 @@
 package live.crowdcontrol.cc4j;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import live.crowdcontrol.cc4j.util.EventDispatchMode;
+import live.crowdcontrol.cc4j.util.EventManager;
+import live.crowdcontrol.cc4j.util.GlobalEventManager;
 import live.crowdcontrol.cc4j.util.HttpUtil;
+import live.crowdcontrol.cc4j.util.TaskTimer;
+import live.crowdcontrol.cc4j.util.TokenBucket;
 import live.crowdcontrol.cc4j.websocket.ConnectedPlayer;
+import live.crowdcontrol.cc4j.websocket.SocketPool;
 import live.crowdcontrol.cc4j.websocket.data.CCEffectResponse;
 import live.crowdcontrol.cc4j.websocket.data.CCInstantEffectResponse;
 import live.crowdcontrol.cc4j.websocket.data.CCTimedEffectResponse;
@@ -30,31 +36,67 @@ public class CrowdControl {
 	 */
 	public static final int QUEUE_DURATION = 60;
 	private static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/Manager");
-	protected final @NotNull Map<String, Supplier<CCEffect>> effects = new HashMap<>();
-	protected final @NotNull Map<UUID, ConnectedPlayer> players = new HashMap<>();
-	final @NotNull Map<UUID, ActiveEffect> pendingRequests = new HashMap<>();
-	final @NotNull Map<UUID, ActiveEffect> timedRequests = new HashMap<>();
-	protected final @NotNull ExecutorService effectPool = Executors.newCachedThreadPool();
+	protected final @NotNull Map<String, Supplier<CCEffect>> effects = new ConcurrentHashMap<>();
+	protected final @NotNull Map<String, ExecutionPolicy> effectPolicies = new ConcurrentHashMap<>();
+	protected final @NotNull Map<UUID, ConnectedPlayer> players = new ConcurrentHashMap<>();
+	final @NotNull Map<UUID, ActiveEffect> pendingRequests = new ConcurrentHashMap<>();
+	final @NotNull Map<UUID, ActiveEffect> timedRequests = new ConcurrentHashMap<>();
+	final @NotNull Map<UUID, Map<String, Set<ActiveEffect>>> activeEffects = new ConcurrentHashMap<>();
+	protected final @NotNull ExecutorService effectPool;
 	protected final @NotNull ScheduledExecutorService timedEffectPool = Executors.newScheduledThreadPool(20);
-	protected final @NotNull ExecutorService eventPool = Executors.newCachedThreadPool();
-	protected final @NotNull HttpUtil httpUtil = new HttpUtil(this);
+	protected final @NotNull ExecutorService eventPool;
+	private final @NotNull TaskTimer defaultTimer = TaskTimer.of(timedEffectPool);
+	protected volatile @NotNull TaskTimer timer = defaultTimer;
+	protected final @NotNull HttpUtil httpUtil = new HttpUtil();
+	protected volatile @Nullable SocketPool socketPool;
+	protected final @NotNull GlobalEventManager globalEventManager = new GlobalEventManager();
 	protected final @NotNull String gameID;
 	protected final @NotNull String gamePackID;
 	protected final @NotNull String appID;
 	protected final @NotNull String appSecret;
 	protected final @NotNull Path dataFolder;
+	protected final boolean virtualThreads;
 	protected @Nullable GamePack gamePack;
+	protected volatile int responseBatchWindow = 0;
+	protected volatile int responseBatchSize = 32;
+	protected volatile @NotNull EventDispatchMode eventDispatchMode = EventDispatchMode.CONCURRENT;
+	protected volatile @NotNull EffectDispatchMode effectDispatchMode = EffectDispatchMode.POOL;
+	protected final @NotNull Queue<FutureTask<?>> effectQueue = new ConcurrentLinkedQueue<>();
+	protected volatile int maxReconnectDelay = 60;
+	protected volatile @NotNull TokenBucket connectLimiter = new TokenBucket(10, 10);
+	final @NotNull EffectAdmission admission = new EffectAdmission(this::startEffect);
+	final @NotNull ExecutionLanes lanes = new ExecutionLanes();
 
 	public CrowdControl(@NotNull String gameID,
 						@NotNull String gamePackID,
 						@NotNull String appID,
 						@NotNull String appSecret,
 						@NotNull Path dataFolder) {
+		this(gameID, gamePackID, appID, appSecret, dataFolder, false);
+	}
+
+	/**
+	 * Creates a Crowd Control instance.
+	 * <p>
+	 * Virtual threads greatly reduce the cost of effects which block while waiting on the game,
+	 * but should be disabled if your effects or event listeners depend on thread-local state.
+	 *
+	 * @param virtualThreads whether effects and event listeners should be run on virtual threads
+	 */
+	public CrowdControl(@NotNull String gameID,
+						@NotNull String gamePackID,
+						@NotNull String appID,
+						@NotNull String appSecret,
+						@NotNull Path dataFolder,
+						boolean virtualThreads) {
 		this.gameID = gameID;
 		this.gamePackID = gamePackID;
 		this.appID = appID;
 		this.appSecret = appSecret;
 		this.dataFolder = dataFolder;
+		this.virtualThreads = virtualThreads;
+		this.effectPool = createPool("CrowdControl-Effect-", virtualThreads);
+		this.eventPool = createPool("CrowdControl-Event-", virtualThreads);
 
 		if (!Files.exists(dataFolder)) {
 			try {
@@ -67,6 +109,12 @@ public class CrowdControl {
 		loadGamePack();
 	}
 
+	private static @NotNull ExecutorService createPool(@NotNull String name, boolean virtualThreads) {
+		if (virtualThreads)
+			return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+		return Executors.newCachedThreadPool();
+	}
+
 	/**
 	 * Gets the ID of this game's Crowd Control metadata.
 	 *
@@ -122,6 +170,15 @@ public class CrowdControl {
 		return effectPool;
 	}
 
+	/**
+	 * Gets whether effects and event listeners are run on virtual threads.
+	 *
+	 * @return uses virtual threads
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
 	/**
 	 * Gets the executor service on which timed effect updates are to be run.
 	 *
@@ -131,6 +188,28 @@ public class CrowdControl {
 		return timedEffectPool;
 	}
 
+	/**
+	 * Gets the timer which schedules effect timeouts, timed effect completions, and socket keepalives.
+	 * By default, this schedules tasks on the {@link #getTimedEffectPool() timed effect pool}.
+	 *
+	 * @return timer
+	 */
+	public @NotNull TaskTimer getTimer() {
+		return timer;
+	}
+
+	/**
+	 * Sets the timer which schedules effect timeouts, timed effect completions, and socket keepalives,
+	 * such as a {@link live.crowdcontrol.cc4j.util.HashedWheelTimer HashedWheelTimer}.
+	 * This should be called before any players are added.
+	 * The caller remains responsible for closing the provided timer, as {@link #close()} only closes the default one.
+	 *
+	 * @param timer timer
+	 */
+	public void setTimer(@NotNull TaskTimer timer) {
+		this.timer = timer;
+	}
+
 	/**
 	 * Gets the executor service on which events are to be run.
 	 *
@@ -140,6 +219,86 @@ public class CrowdControl {
 		return eventPool;
 	}
 
+	/**
+	 * Gets the manager which receives the events of every player.
+	 * Listeners registered here are passed the player that each event belongs to,
+	 * so they only need to be registered once rather than for each player.
+	 *
+	 * @return global event manager
+	 */
+	public @NotNull GlobalEventManager getGlobalEventManager() {
+		return globalEventManager;
+	}
+
+	/**
+	 * Gets how players' event managers run their listeners.
+	 *
+	 * @return dispatch mode
+	 */
+	public @NotNull EventDispatchMode getEventDispatchMode() {
+		return eventDispatchMode;
+	}
+
+	/**
+	 * Sets how players' event managers run their listeners.
+	 * Use {@link EventDispatchMode#ORDERED} to handle each player's events in order.
+	 * This should be called before any players are added.
+	 *
+	 * @param eventDispatchMode dispatch mode
+	 */
+	public void setEventDispatchMode(@NotNull EventDispatchMode eventDispatchMode) {
+		this.eventDispatchMode = eventDispatchMode;
+	}
+
+	/**
+	 * Gets which thread runs triggered effects.
+	 *
+	 * @return dispatch mode
+	 */
+	public @NotNull EffectDispatchMode getEffectDispatchMode() {
+		return effectDispatchMode;
+	}
+
+	/**
+	 * Sets which thread runs triggered effects.
+	 * Use {@link EffectDispatchMode#GAME_LOOP} to run effects on the game's own thread via {@link #drainEffects(int, long)}.
+	 * Effects still queued when switching away from the game loop are handed to the effect pool.
+	 *
+	 * @param effectDispatchMode dispatch mode
+	 */
+	public void setEffectDispatchMode(@NotNull EffectDispatchMode effectDispatchMode) {
+		this.effectDispatchMode = effectDispatchMode;
+		if (effectDispatchMode == EffectDispatchMode.GAME_LOOP) return;
+		FutureTask<?> task;
+		while ((task = effectQueue.poll()) != null)
+			effectPool.execute(task);
+	}
+
+	/**
+	 * Runs effects which were queued in {@link EffectDispatchMode#GAME_LOOP game loop} mode on the calling thread.
+	 * This is intended to be called once per tick by the game's main thread.
+	 * <p>
+	 * Effects are run in the order they were admitted until either limit is reached.
+	 * The time budget is checked after each effect, so a single slow effect may overrun it.
+	 *
+	 * @param maxCount maximum number of effects to run
+	 * @param maxNanos time budget in nanoseconds
+	 * @return number of effects run
+	 */
+	public int drainEffects(int maxCount, long maxNanos) {
+		long deadline = System.nanoTime() + maxNanos;
+		int ran = 0;
+		while (ran < maxCount) {
+			FutureTask<?> task = effectQueue.poll();
+			if (task == null) break;
+			if (task.isDone()) continue; // cancelled or timed out while queued
+			task.run();
+			ran++;
+			if (System.nanoTime() - deadline >= 0) break;
+		}
+		return ran;
+	}
+
 	/**
 	 * Gets the utility for making requests to Crowd Control's HTTP servers.
 	 *
@@ -149,6 +308,163 @@ public class CrowdControl {
 		return httpUtil;
 	}
 
+	/**
+	 * Gets the pool which assigns players to WebSocket connections.
+	 * Use {@link SocketPool#setMaxSockets(int)} to multiplex players over a limited number of sockets.
+	 *
+	 * @return socket pool
+	 */
+	public @NotNull SocketPool getSocketPool() {
+		// created lazily so that the pool never sees a partially constructed instance
+		SocketPool pool = socketPool;
+		if (pool != null) return pool;
+		synchronized (this) {
+			pool = socketPool;
+			if (pool == null) socketPool = pool = new SocketPool(this);
+			return pool;
+		}
+	}
+
+	/**
+	 * Gets the time in milliseconds that effect responses are held for so that they may be sent together.
+	 * A value of 0 indicates that responses are sent immediately.
+	 *
+	 * @return batching window in milliseconds
+	 */
+	public int getResponseBatchWindow() {
+		return responseBatchWindow;
+	}
+
+	/**
+	 * Gets the number of held effect responses which causes a batch to be sent before its window elapses.
+	 *
+	 * @return maximum batch size
+	 */
+	public int getResponseBatchSize() {
+		return responseBatchSize;
+	}
+
+	/**
+	 * Enables batching of effect responses.
+	 * Responses sent by a player within {@code window} milliseconds of each other are merged into a single call,
+	 * which reduces the number of frames sent while many effects are pausing, resuming, or finishing at once.
+	 *
+	 * @param window  batching window in milliseconds, or 0 to disable batching
+	 * @param maxSize number of responses which causes a batch to be sent early
+	 */
+	public void setResponseBatching(int window, int maxSize) {
+		if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive");
+		this.responseBatchWindow = Math.max(0, window);
+		this.responseBatchSize = maxSize;
+	}
+
+	/**
+	 * Gets the maximum time in seconds that a socket waits before attempting to reconnect.
+	 *
+	 * @return maximum reconnect delay in seconds
+	 */
+	public int getMaxReconnectDelay() {
+		return maxReconnectDelay;
+	}
+
+	/**
+	 * Sets the maximum time in seconds that a socket waits before attempting to reconnect.
+	 * Reconnect delays grow exponentially up to this cap and are randomized to spread out sockets which disconnected together.
+	 *
+	 * @param maxReconnectDelay maximum reconnect delay in seconds
+	 */
+	public void setMaxReconnectDelay(int maxReconnectDelay) {
+		if (maxReconnectDelay < 1) throw new IllegalArgumentException("maxReconnectDelay must be positive");
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	/**
+	 * Gets the limiter which paces how many sockets begin connecting each second.
+	 *
+	 * @return connection rate limiter
+	 */
+	public @NotNull TokenBucket getConnectLimiter() {
+		return connectLimiter;
+	}
+
+	/**
+	 * Sets how many sockets may begin connecting each second.
+	 * Sockets over this limit wait their turn rather than all reconnecting at once after an outage.
+	 *
+	 * @param connectsPerSecond sustained connection rate, also used as the burst size
+	 */
+	public void setMaxConnectsPerSecond(int connectsPerSecond) {
+		this.connectLimiter = new TokenBucket(connectsPerSecond, connectsPerSecond);
+	}
+
+	/**
+	 * Gets the maximum number of effects which may execute at once across all players.
+	 *
+	 * @return global concurrency limit, or 0 if unlimited
+	 */
+	public int getMaxConcurrentEffects() {
+		return admission.getMaxRunning();
+	}
+
+	/**
+	 * Gets the maximum number of effects which may execute at once for a single player.
+	 *
+	 * @return per-player concurrency limit, or 0 if unlimited
+	 */
+	public int getMaxConcurrentEffectsPerPlayer() {
+		return admission.getMaxRunningPerPlayer();
+	}
+
+	/**
+	 * Sets how many effects may execute at once.
+	 * Effects over this limit wait in a queue (see {@link #setEffectQueueLimits(int, int)}) until a running effect finishes.
+	 *
+	 * @param global    limit across all players, or 0 for unlimited
+	 * @param perPlayer limit for each player, or 0 for unlimited
+	 */
+	public void setEffectConcurrencyLimits(int global, int perPlayer) {
+		admission.setConcurrencyLimits(global, perPlayer);
+	}
+
+	/**
+	 * Gets the maximum number of effects which may wait to execute across all players.
+	 *
+	 * @return global queue limit, or 0 if unlimited
+	 */
+	public int getMaxQueuedEffects() {
+		return admission.getMaxWaiting();
+	}
+
+	/**
+	 * Gets the maximum number of effects which may wait to execute for a single player.
+	 *
+	 * @return per-player queue limit, or 0 if unlimited
+	 */
+	public int getMaxQueuedEffectsPerPlayer() {
+		return admission.getMaxWaitingPerPlayer();
+	}
+
+	/**
+	 * Sets how many effects may wait for a concurrency slot.
+	 * Requests which arrive once the queue is full are immediately answered with {@link ResponseStatus#FAIL_TEMPORARY},
+	 * allowing Crowd Control to retry them later instead of holding them until they time out.
+	 *
+	 * @param global    limit across all players, or 0 for unlimited
+	 * @param perPlayer limit for each player, or 0 for unlimited
+	 */
+	public void setEffectQueueLimits(int global, int perPlayer) {
+		admission.setQueueLimits(global, perPlayer);
+	}
+
+	/**
+	 * Gets counts of how incoming effect requests have been admitted, queued, and rejected.
+	 *
+	 * @return admission metrics
+	 */
+	public @NotNull AdmissionMetrics getAdmissionMetrics() {
+		return admission.getMetrics();
+	}
+
 	/**
 	 * Gets the data about this game pack.
 	 * May be missing if the game IDs are invalid, or it hasn't finished loading yet.
@@ -195,16 +511,21 @@ public class CrowdControl {
 	 */
 	@NotNull
 	public CCPlayer addPlayer(@NotNull UUID playerId) {
-		CCPlayer existing = getPlayer(playerId);
-		if (existing != null) {
-			log.warn("Asked to add player {} with existing connection", playerId);
-			return existing;
+		ConnectedPlayer existing = players.get(playerId);
+		if (existing == null) {
+			// constructed outside the map so that token loading and listeners never run under its lock
+			ConnectedPlayer created = new ConnectedPlayer(playerId, this);
+			existing = players.putIfAbsent(playerId, created);
+			if (existing == null) {
+				created.getEventManager().registerEventConsumer(CCEventType.EFFECT_RESPONSE, response -> handleEffectResponse(response, created), EventManager.CATCH_UP_DEFAULT, true);
+				created.connect();
+				return created;
+			}
+			// lost a race with a concurrent call; the loser never connected, so this only discards it
+			created.close();
 		}
-		ConnectedPlayer player = new ConnectedPlayer(playerId, this);
-		player.getEventManager().registerEventConsumer(CCEventType.EFFECT_RESPONSE, response -> handleEffectResponse(response, player));
-		player.connect();
-		players.put(playerId, player);
-		return player;
+		log.warn("Asked to add player {} with existing connection", playerId);
+		return existing;
 	}
 
 	/**
@@ -259,6 +580,18 @@ public class CrowdControl {
 		return addEffect(effectID, () -> effect);
 	}
 
+	/**
+	 * Registers an effect which maintains one object across its lifetime.
+	 *
+	 * @param effectID ID of the effect
+	 * @param effect   executor object
+	 * @param policy   restrictions on which requests of the effect may execute at the same time
+	 * @return whether the effect was added successfully
+	 */
+	public boolean addEffect(@NotNull String effectID, @NotNull CCEffect effect, @NotNull ExecutionPolicy policy) {
+		return addEffect(effectID, () -> effect, policy);
+	}
+
 	/**
 	 * Registers an effect which is instantiated upon triggering.
 	 *
@@ -267,15 +600,33 @@ public class CrowdControl {
 	 * @return whether the effect was added successfully
 	 */
 	public boolean addEffect(@NotNull String effectID, @NotNull Supplier<@NotNull CCEffect> supplier) {
+		return addEffect(effectID, supplier, ExecutionPolicy.unrestricted());
+	}
+
+	/**
+	 * Registers an effect which is instantiated upon triggering.
+	 *
+	 * @param effectID ID of the effect
+	 * @param supplier executor supplier
+	 * @param policy   restrictions on which requests of the effect may execute at the same time
+	 * @return whether the effect was added successfully
+	 */
+	public boolean addEffect(@NotNull String effectID, @NotNull Supplier<@NotNull CCEffect> supplier, @NotNull ExecutionPolicy policy) {
 		if (!effectID.matches(EFFECT_ID_PATTERN)) {
 			log.warn("Effect ID {} should match pattern {}", effectID, EFFECT_ID_PATTERN);
 //			return false;
 		}
-		if (effects.containsKey(effectID)) {
+		boolean[] added = new boolean[1];
+		effects.computeIfAbsent(effectID, id -> {
+			// the policy is stored before the supplier is published, so no request can run without it
+			effectPolicies.put(id, policy);
+			added[0] = true;
+			return supplier;
+		});
+		if (!added[0]) {
 			log.error("Effect ID {} is already registered", effectID);
 			return false;
 		}
-		effects.put(effectID, supplier);
 		return true;
 	}
 
@@ -298,26 +649,94 @@ public class CrowdControl {
 			return;
 		}
 
-		CCEffect ccEffect;
-		try {
-			ccEffect = supplier.get();
-		} catch (Exception e) {
-			log.error("Failed to load effect {}", effectID, e);
-			source.sendResponse(new CCInstantEffectResponse(
-				payload.getRequestId(),
-				ResponseStatus.FAIL_PERMANENT,
-				"Effect could not be loaded"
-			));
-			return;
-		}
-
-		ActiveEffect effect = new ActiveEffect(this, ccEffect, payload, source);
+		ExecutionPolicy policy = effectPolicies.getOrDefault(effectID, ExecutionPolicy.unrestricted());
+		// the supplier is user code, so it is only called once the effect runs, off the thread which received the request
+		ActiveEffect effect = new ActiveEffect(this, supplier, payload, source, policy);
 		pendingRequests.put(payload.getRequestId(), effect);
 
 		CompletableFuture<Void> responseFuture = new CompletableFuture<>();
 		effect.setResponseFuture(responseFuture);
 
-		Future<?> responseThread = effectPool.submit(() -> {
+		ScheduledFuture<?> responseTimeout = timer.schedule(
+			() -> {
+				if (pendingRequests.remove(payload.getRequestId(), effect))
+					cancel(effect, "Timed out");
+			},
+			QUEUE_DURATION,
+			TimeUnit.SECONDS
+		);
+		effect.setResponseTimeout(responseTimeout);
+
+		responseFuture.handleAsync((result, e) -> {
+			if (e != null)
+				log.error("Failed to await effect {}", effectID, e);
+			return null;
+		}, effectPool);
+
+		if (lanes.acquire(effect)) admit(effect);
+	}
+
+	/**
+	 * Submits an effect whose execution policy allows it to run to the global and per-player concurrency limits.
+	 */
+	private void admit(@NotNull ActiveEffect effect) {
+		if (pendingRequests.get(effect.getPayload().getRequestId()) != effect) {
+			// cancelled or timed out while being handed its place in the lane
+			advanceLane(effect);
+			return;
+		}
+		if (admission.submit(effect) != EffectAdmission.Outcome.REJECTED) return;
+		advanceLane(effect);
+		if (!pendingRequests.remove(effect.getPayload().getRequestId(), effect)) return;
+		log.debug("Rejecting effect {} as too many effects are in progress", effect.getPayload().getEffect().getEffectId());
+		cancel(effect, "Too many effects are in progress");
+	}
+
+	/**
+	 * Hands an effect's place in its execution lane to the next request queued behind it.
+	 */
+	private void advanceLane(@NotNull ActiveEffect effect) {
+		ActiveEffect next = lanes.release(effect);
+		if (next != null) admit(next);
+	}
+
+	/**
+	 * Releases everything held by an effect which has finished executing or was cancelled.
+	 */
+	private void finish(@NotNull ActiveEffect effect) {
+		admission.release(effect);
+		advanceLane(effect);
+	}
+
+	/**
+	 * Invokes an effect which has been admitted, releasing its slot once it finishes or is cancelled.
+	 */
+	private void startEffect(@NotNull ActiveEffect effect) {
+		PublicEffectPayload payload = effect.getPayload();
+		ConnectedPlayer source = effect.getPlayer();
+		String effectID = payload.getEffect().getEffectId();
+		CompletableFuture<Void> responseFuture = Objects.requireNonNull(effect.getResponseFuture());
+		if (responseFuture.isDone()) {
+			// cancelled while being handed a slot
+			finish(effect);
+			return;
+		}
+
+		boolean gameLoop = effectDispatchMode == EffectDispatchMode.GAME_LOOP;
+		FutureTask<Void> responseThread = new FutureTask<>(() -> {
+			CCEffect ccEffect;
+			try {
+				ccEffect = effect.loadEffect();
+			} catch (Exception e) {
+				log.error("Failed to load effect {}", effectID, e);
+				source.sendResponse(new CCInstantEffectResponse(
+					payload.getRequestId(),
+					ResponseStatus.FAIL_PERMANENT,
+					"Effect could not be loaded"
+				));
+				responseFuture.complete(null);
+				return;
+			}
 			try {
 				ccEffect.onTrigger(payload, source);
 				responseFuture.complete(null);
@@ -336,26 +755,36 @@ public class CrowdControl {
 				));
 				responseFuture.completeExceptionally(e);
 			}
-		});
-		effect.setResponseThread(responseThread);
-
-		ScheduledFuture<?> responseTimeout = timedEffectPool.schedule(
-			() -> cancel(effect, "Timed out"),
-			QUEUE_DURATION,
-			TimeUnit.SECONDS
-		);
-		effect.setResponseTimeout(responseTimeout);
+		}, null) {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				// never interrupt the game's own thread
+				return super.cancel(mayInterruptIfRunning && !gameLoop);
+			}
 
-		responseFuture.handleAsync((result, e) -> {
-			if (e != null)
-				log.error("Failed to await effect {}", effectID, e);
-			return null;
-		}, effectPool);
+			@Override
+			protected void done() {
+				// runs exactly once, even if the task is cancelled before it starts
+				finish(effect);
+			}
+		};
+		effect.setResponseThread(responseThread);
+		// cancel completes the response future before reading the response thread, so one of the two always sees the other
+		if (responseFuture.isDone()) responseThread.cancel(false);
+		if (!gameLoop) {
+			effectPool.execute(responseThread);
+			return;
+		}
+		effectQueue.add(responseThread);
+		// if the mode was switched away after it was read, the setter's hand-off may have missed this task;
+		// whichever of the two removes it from the queue runs it
+		if (effectDispatchMode != EffectDispatchMode.GAME_LOOP && effectQueue.remove(responseThread))
+			effectPool.execute(responseThread);
 	}
 
 	protected void handleEffectResponse(@NotNull CCEffectResponse response, @NotNull ConnectedPlayer source) {
 		if (response.getStatus() == ResponseStatus.TIMED_END) {
-			timedRequests.remove(response.getRequestId());
+			removeTimedRequest(response.getRequestId());
 			return;
 		}
 
@@ -375,13 +804,53 @@ public class CrowdControl {
 		if (!(response instanceof CCTimedEffectResponse timedResponse)) return;
 
 		// Start timed effect!
-		timedRequests.put(response.getRequestId(), effect);
+		addTimedRequest(effect);
 		effect.scheduleCompleter(timedResponse.getTimeRemaining());
 	}
 
-	private void cancel(ActiveEffect effect, String message) {
-		pendingRequests.remove(effect.getPayload().getRequestId());
+	private void addTimedRequest(@NotNull ActiveEffect effect) {
+		timedRequests.put(effect.getPayload().getRequestId(), effect);
+		// updates to a player's index happen inside compute so that unindex cannot drop a map being added to
+		activeEffects.compute(effect.getPlayer().getUuid(), (playerId, byEffect) -> {
+			if (byEffect == null) byEffect = new ConcurrentHashMap<>();
+			byEffect.computeIfAbsent(effect.getPayload().getEffect().getEffectId(), $ -> ConcurrentHashMap.newKeySet()).add(effect);
+			return byEffect;
+		});
+	}
+
+	private @Nullable ActiveEffect removeTimedRequest(@NotNull UUID requestId) {
+		ActiveEffect effect = timedRequests.remove(requestId);
+		if (effect != null) unindex(effect);
+		return effect;
+	}
+
+	private boolean removeTimedRequest(@NotNull UUID requestId, @NotNull ActiveEffect effect) {
+		if (!timedRequests.remove(requestId, effect)) return false;
+		unindex(effect);
+		return true;
+	}
 
+	private void unindex(@NotNull ActiveEffect effect) {
+		activeEffects.computeIfPresent(effect.getPlayer().getUuid(), (playerId, byEffect) -> {
+			byEffect.computeIfPresent(effect.getPayload().getEffect().getEffectId(), (effectId, instances) -> {
+				instances.remove(effect);
+				return instances.isEmpty() ? null : instances;
+			});
+			return byEffect.isEmpty() ? null : byEffect;
+		});
+	}
+
+	private @NotNull Set<ActiveEffect> getActiveEffects(@NotNull String effectId, @NotNull UUID playerId) {
+		Map<String, Set<ActiveEffect>> byEffect = activeEffects.get(playerId);
+		if (byEffect == null) return Collections.emptySet();
+		return byEffect.getOrDefault(effectId, Collections.emptySet());
+	}
+
+	/**
+	 * Cancels an effect which the caller has already removed from {@link #pendingRequests} or {@link #timedRequests}.
+	 * Removing the effect first ensures that only one caller may cancel it.
+	 */
+	private void cancel(ActiveEffect effect, String message) {
 		if (effect.isTimed()) {
 			effect.complete();
 		} else {
@@ -400,6 +869,10 @@ public class CrowdControl {
 
 		ScheduledFuture<?> responseTimeout = effect.getResponseTimeout();
 		if (responseTimeout != null) responseTimeout.cancel(false);
+
+		// an effect waiting on admission already holds its place in its lane, which must be passed on
+		if (admission.dequeue(effect)) advanceLane(effect);
+		else lanes.dequeue(effect);
 	}
 
 	/**
@@ -413,20 +886,25 @@ public class CrowdControl {
 			cancel(effect, "Effect cancelled before execution");
 		}
 
-		effect = timedRequests.get(requestId);
+		effect = removeTimedRequest(requestId);
 		if (effect != null) {
 			cancel(effect, "Effect cancelled during execution");
 		}
 	}
 
+	/**
+	 * Cancels all pending and active requests.
+	 */
 	public void cancelAll() {
-		Set<UUID> keys = new HashSet<>(pendingRequests.keySet());
-		for (UUID key : keys)
-			cancel(pendingRequests.get(key), "Effect cancelled before execution");
+		pendingRequests.forEach((requestId, effect) -> {
+			if (pendingRequests.remove(requestId, effect))
+				cancel(effect, "Effect cancelled before execution");
+		});
 
-		keys = new HashSet<>(timedRequests.keySet());
-		for (UUID key : keys)
-			cancel(timedRequests.get(key), "Effect cancelled during execution");
+		timedRequests.forEach((requestId, effect) -> {
+			if (removeTimedRequest(requestId, effect))
+				cancel(effect, "Effect cancelled during execution");
+		});
 	}
 
 	/**
@@ -451,8 +929,10 @@ public class CrowdControl {
 	 * Pauses all requests, and cancels all pending requests.
 	 */
 	public void pauseAll() {
-		// arraylist protects against CME
-		new ArrayList<>(pendingRequests.values()).forEach(effect -> cancel(effect, "All pending effects were requested to be stopped"));
+		pendingRequests.forEach((requestId, effect) -> {
+			if (pendingRequests.remove(requestId, effect))
+				cancel(effect, "All pending effects were requested to be stopped");
+		});
 		timedRequests.values().forEach(ActiveEffect::pause);
 	}
 
@@ -484,17 +964,54 @@ public class CrowdControl {
 	 * @return is effect active
 	 */
 	public boolean isPlayerEffectActive(@NotNull String effectId, @NotNull UUID playerId) {
-		return timedRequests.values().stream().anyMatch(effect -> effect.getPlayer().getUuid().equals(playerId) && effect.getPayload().getEffect().getEffectId().equals(effectId));
+		return !getActiveEffects(effectId, playerId).isEmpty();
+	}
+
+	/**
+	 * Gets the requests of all timed effects which are active for a player.
+	 * Paused effects are considered active.
+	 * The returned collection is not a view; changes to it will not be reflected.
+	 *
+	 * @param playerId player id
+	 * @return active requests
+	 */
+	@NotNull
+	public List<PublicEffectPayload> getActiveEffects(@NotNull UUID playerId) {
+		Map<String, Set<ActiveEffect>> byEffect = activeEffects.get(playerId);
+		if (byEffect == null) return Collections.emptyList();
+		List<PublicEffectPayload> payloads = new ArrayList<>();
+		for (Set<ActiveEffect> instances : byEffect.values())
+			for (ActiveEffect effect : instances)
+				payloads.add(effect.getPayload());
+		return payloads;
+	}
+
+	/**
+	 * Gets the time in milliseconds until a player's timed effect ends.
+	 * If several requests of the effect are active, the longest remaining time is returned.
+	 *
+	 * @param effectId effect id
+	 * @param playerId player id
+	 * @return remaining milliseconds, or -1 if the effect is not active
+	 */
+	public long getEffectTimeRemaining(@NotNull String effectId, @NotNull UUID playerId) {
+		long remaining = -1;
+		for (ActiveEffect effect : getActiveEffects(effectId, playerId))
+			remaining = Math.max(remaining, effect.getTimeRemaining());
+		return remaining;
 	}
 
 	public void close() {
 		cancelAll();
 
-		Set<UUID> uuids = new HashSet<>(players.keySet());
-		for (UUID uuid : uuids)
+		for (UUID uuid : players.keySet())
 			removePlayer(uuid);
 
+		SocketPool pool = socketPool;
+		if (pool != null) pool.close();
+
 		effectPool.shutdown();
+		defaultTimer.close();
 		timedEffectPool.shutdown();
 		eventPool.shutdown();
 
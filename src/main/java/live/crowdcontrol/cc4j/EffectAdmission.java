@@ -0,0 +1,177 @@
+package live.crowdcontrol.cc4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Limits how many effects may execute at once, globally and for each player.
+ * <p>
+ * Requests over the limit wait in a bounded queue without holding a thread,
+ * and requests which do not fit in the queue are rejected immediately.
+ * A limit of 0 means unlimited.
+ */
+final class EffectAdmission {
+	enum Outcome {
+		STARTED,
+		QUEUED,
+		REJECTED
+	}
+
+	private final @NotNull Deque<ActiveEffect> waiting = new ArrayDeque<>();
+	private final @NotNull Map<UUID, int[]> perPlayer = new HashMap<>(); // {running, waiting}
+	private final @NotNull LongAdder admittedCount = new LongAdder();
+	private final @NotNull LongAdder queuedCount = new LongAdder();
+	private final @NotNull LongAdder rejectedCount = new LongAdder();
+	private final @NotNull Consumer<ActiveEffect> starter;
+	private int running = 0;
+	private int maxRunning = 0;
+	private int maxRunningPerPlayer = 0;
+	private int maxWaiting = 0;
+	private int maxWaitingPerPlayer = 0;
+
+	/**
+	 * Creates an admission controller.
+	 *
+	 * @param starter function which begins executing an admitted effect,
+	 *                which must eventually call {@link #release(ActiveEffect)}
+	 */
+	EffectAdmission(@NotNull Consumer<ActiveEffect> starter) {
+		this.starter = starter;
+	}
+
+	synchronized int getMaxRunning() {
+		return maxRunning;
+	}
+
+	synchronized int getMaxRunningPerPlayer() {
+		return maxRunningPerPlayer;
+	}
+
+	synchronized int getMaxWaiting() {
+		return maxWaiting;
+	}
+
+	synchronized int getMaxWaitingPerPlayer() {
+		return maxWaitingPerPlayer;
+	}
+
+	synchronized void setConcurrencyLimits(int global, int perPlayer) {
+		this.maxRunning = Math.max(0, global);
+		this.maxRunningPerPlayer = Math.max(0, perPlayer);
+	}
+
+	synchronized void setQueueLimits(int global, int perPlayer) {
+		this.maxWaiting = Math.max(0, global);
+		this.maxWaitingPerPlayer = Math.max(0, perPlayer);
+	}
+
+	private static boolean under(int count, int limit) {
+		return limit <= 0 || count < limit;
+	}
+
+	private int @NotNull [] counts(@NotNull ActiveEffect effect) {
+		return perPlayer.computeIfAbsent(effect.getPlayer().getUuid(), $ -> new int[2]);
+	}
+
+	private void cleanup(@NotNull ActiveEffect effect, int @NotNull [] counts) {
+		if (counts[0] == 0 && counts[1] == 0) perPlayer.remove(effect.getPlayer().getUuid());
+	}
+
+	private boolean canRun(int @NotNull [] counts) {
+		return under(running, maxRunning) && under(counts[0], maxRunningPerPlayer);
+	}
+
+	/**
+	 * Starts an effect if a slot is free, otherwise queues it if there is room.
+	 *
+	 * @param effect effect to admit
+	 * @return outcome
+	 */
+	@NotNull
+	Outcome submit(@NotNull ActiveEffect effect) {
+		synchronized (this) {
+			int[] counts = counts(effect);
+			// freed slots are handed straight to the queue, so any effect still waiting here is held back by its own player's limit
+			if (canRun(counts)) {
+				running++;
+				counts[0]++;
+				admittedCount.increment();
+			} else if (under(waiting.size(), maxWaiting) && under(counts[1], maxWaitingPerPlayer)) {
+				waiting.add(effect);
+				counts[1]++;
+				queuedCount.increment();
+				return Outcome.QUEUED;
+			} else {
+				cleanup(effect, counts);
+				rejectedCount.increment();
+				return Outcome.REJECTED;
+			}
+		}
+		starter.accept(effect);
+		return Outcome.STARTED;
+	}
+
+	/**
+	 * Removes an effect from the queue, such as when it is cancelled before starting.
+	 *
+	 * @param effect effect to remove
+	 * @return whether the effect was queued
+	 */
+	synchronized boolean dequeue(@NotNull ActiveEffect effect) {
+		if (!waiting.remove(effect)) return false;
+		int[] counts = counts(effect);
+		counts[1]--;
+		cleanup(effect, counts);
+		return true;
+	}
+
+	/**
+	 * Frees the slot held by an effect which has finished executing, starting the next queued effect which may run.
+	 *
+	 * @param effect finished effect
+	 */
+	void release(@NotNull ActiveEffect effect) {
+		ActiveEffect next = null;
+		synchronized (this) {
+			running--;
+			int[] counts = counts(effect);
+			counts[0]--;
+			cleanup(effect, counts);
+
+			for (Iterator<ActiveEffect> iterator = waiting.iterator(); iterator.hasNext(); ) {
+				ActiveEffect candidate = iterator.next();
+				int[] candidateCounts = counts(candidate);
+				if (!canRun(candidateCounts)) {
+					if (!under(running, maxRunning)) break;
+					continue; // this player is at their own limit; let others through
+				}
+				iterator.remove();
+				candidateCounts[1]--;
+				candidateCounts[0]++;
+				running++;
+				next = candidate;
+				break;
+			}
+		}
+		if (next != null) starter.accept(next);
+	}
+
+	@NotNull
+	AdmissionMetrics getMetrics() {
+		int running;
+		int waiting;
+		synchronized (this) {
+			running = this.running;
+			waiting = this.waiting.size();
+		}
+		return new AdmissionMetrics(admittedCount.sum(), queuedCount.sum(), rejectedCount.sum(), running, waiting);
+	}
+}
@@ -0,0 +1,19 @@
+package live.crowdcontrol.cc4j;
+
+/**
+ * Determines which thread runs {@link CCEffect#onTrigger}.
+ */
+public enum EffectDispatchMode {
+	/**
+	 * Each effect is submitted to the {@link CrowdControl#getEffectPool() effect pool} as its own task.
+	 */
+	POOL,
+	/**
+	 * Effects are queued until the game calls {@link CrowdControl#drainEffects(int, long)},
+	 * which runs them on the calling thread, typically once per server tick.
+	 * <p>
+	 * Responses, timeouts, and cancellations are still handled by the library,
+	 * but a cancelled effect which is already running is never interrupted.
+	 */
+	GAME_LOOP,
+}
@@ -0,0 +1,68 @@
+package live.crowdcontrol.cc4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Queues effects behind others which their {@link ExecutionPolicy} forbids them from running alongside.
+ */
+final class ExecutionLanes {
+	private final @NotNull Map<Object, Lane> lanes = new HashMap<>();
+
+	/**
+	 * Claims a place in an effect's lane, or queues it behind the effects already holding one.
+	 *
+	 * @param effect effect to run
+	 * @return whether the effect may proceed now
+	 */
+	synchronized boolean acquire(@NotNull ActiveEffect effect) {
+		Object key = effect.getLane();
+		if (key == null) return true;
+		Lane lane = lanes.computeIfAbsent(key, $ -> new Lane());
+		if (lane.running < effect.getPolicy().getLimit()) {
+			lane.running++;
+			return true;
+		}
+		lane.waiting.add(effect);
+		return false;
+	}
+
+	/**
+	 * Gives up an effect's place in its lane.
+	 *
+	 * @param effect effect which has finished
+	 * @return the queued effect which has been handed the place and may now proceed, if any
+	 */
+	synchronized @Nullable ActiveEffect release(@NotNull ActiveEffect effect) {
+		Object key = effect.getLane();
+		if (key == null) return null;
+		Lane lane = lanes.get(key);
+		if (lane == null) return null;
+		ActiveEffect next = lane.waiting.poll();
+		if (next != null) return next;
+		if (--lane.running <= 0) lanes.remove(key);
+		return null;
+	}
+
+	/**
+	 * Removes an effect from its lane's queue, such as when it is cancelled before starting.
+	 *
+	 * @param effect effect to remove
+	 */
+	synchronized void dequeue(@NotNull ActiveEffect effect) {
+		Object key = effect.getLane();
+		if (key == null) return;
+		Lane lane = lanes.get(key);
+		if (lane != null) lane.waiting.remove(effect);
+	}
+
+	private static final class Lane {
+		private final @NotNull Deque<ActiveEffect> waiting = new ArrayDeque<>();
+		private int running = 0;
+	}
+}
@@ -0,0 +1,122 @@
+package live.crowdcontrol.cc4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Restricts which requests of an effect may execute at the same time.
+ * <p>
+ * Requests which may not yet execute are queued in the order they were received without holding a thread,
+ * and are still subject to the usual {@value CrowdControl#QUEUE_DURATION} second timeout and to cancellation.
+ * A request is considered to be executing while its {@link CCEffect#onTrigger} call is running.
+ *
+ * @see CrowdControl#addEffect(String, CCEffect, ExecutionPolicy)
+ */
+public final class ExecutionPolicy {
+	private static final @NotNull ExecutionPolicy UNRESTRICTED = new ExecutionPolicy(Kind.UNRESTRICTED, 0, null);
+	private static final @NotNull ExecutionPolicy SERIAL_PER_PLAYER = new ExecutionPolicy(Kind.SERIAL_PER_PLAYER, 1, null);
+	private final @NotNull Kind kind;
+	private final int limit;
+	private final @Nullable String group;
+
+	private ExecutionPolicy(@NotNull Kind kind, int limit, @Nullable String group) {
+		this.kind = kind;
+		this.limit = limit;
+		this.group = group;
+	}
+
+	/**
+	 * Allows any number of requests of the effect to execute at once.
+	 * This is the default.
+	 *
+	 * @return unrestricted policy
+	 */
+	public static @NotNull ExecutionPolicy unrestricted() {
+		return UNRESTRICTED;
+	}
+
+	/**
+	 * Allows only one request of the effect to execute at once for each player.
+	 *
+	 * @return serial policy
+	 */
+	public static @NotNull ExecutionPolicy serialPerPlayer() {
+		return SERIAL_PER_PLAYER;
+	}
+
+	/**
+	 * Allows up to the given number of requests of the effect to execute at once across all players.
+	 *
+	 * @param limit maximum concurrent requests
+	 * @return bounded policy
+	 */
+	public static @NotNull ExecutionPolicy maxConcurrent(int limit) {
+		if (limit < 1) throw new IllegalArgumentException("limit must be positive");
+		return new ExecutionPolicy(Kind.MAX_CONCURRENT, limit, null);
+	}
+
+	/**
+	 * Allows only one request at once from all effects which share this group.
+	 *
+	 * @param group name of the group
+	 * @return exclusive policy
+	 */
+	public static @NotNull ExecutionPolicy exclusive(@NotNull String group) {
+		return new ExecutionPolicy(Kind.EXCLUSIVE, 1, group);
+	}
+
+	/**
+	 * Gets the maximum number of requests which may execute at once in a lane of this policy.
+	 *
+	 * @return limit, or 0 if unrestricted
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Gets the name of the exclusive group.
+	 *
+	 * @return group name, or null if this is not an exclusive policy
+	 */
+	public @Nullable String getGroup() {
+		return group;
+	}
+
+	/**
+	 * Gets the key of the lane which a request is queued in.
+	 * Requests which share a lane are limited together.
+	 *
+	 * @param effectId ID of the requested effect
+	 * @param playerId ID of the player the request was received for
+	 * @return lane key, or null if the request is unrestricted
+	 */
+	@Nullable Object getLane(@NotNull String effectId, @NotNull UUID playerId) {
+		return switch (kind) {
+			case UNRESTRICTED -> null;
+			case SERIAL_PER_PLAYER -> List.of(kind, effectId, playerId);
+			case MAX_CONCURRENT -> List.of(kind, effectId);
+			case EXCLUSIVE -> List.of(kind, group);
+		};
+	}
+
+	@Override
+	public String toString() {
+		return switch (kind) {
+			case UNRESTRICTED -> "unrestricted";
+			case SERIAL_PER_PLAYER -> "serial per player";
+			case MAX_CONCURRENT -> "max " + limit + " concurrent";
+			case EXCLUSIVE -> "exclusive with " + group;
+		};
+	}
+
+	private enum Kind {
+		UNRESTRICTED,
+		SERIAL_PER_PLAYER,
+		MAX_CONCURRENT,
+		EXCLUSIVE
+	}
+}
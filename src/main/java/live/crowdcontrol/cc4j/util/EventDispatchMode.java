@@ -0,0 +1,20 @@
+package live.crowdcontrol.cc4j.util;
+
+/**
+ * Determines how an {@link EventManager} runs its listeners.
+ */
+public enum EventDispatchMode {
+	/**
+	 * Every listener of every event is submitted to the event pool as its own task.
+	 * Listeners may run concurrently and in any order.
+	 */
+	CONCURRENT,
+	/**
+	 * Each event manager drains its events one at a time, running all listeners of an event together.
+	 * Events of one player are handled in the order they were dispatched,
+	 * while the events of different players are still handled in parallel.
+	 * <p>
+	 * A listener which blocks will delay all later events of its player.
+	 */
+	ORDERED,
+}
@@ -0,0 +1,96 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed-size ring buffer of the most recent records of one event type.
+ * <p>
+ * Appending claims a slot with a single atomic update, so dispatching threads never block each other.
+ * Readers skip slots that are mid-write or have been overwritten since they were claimed.
+ * A history is resized by {@link #retire() retiring} it and copying its records into a new one.
+ */
+final class EventHistory {
+	/**
+	 * Bit of {@link #next} set once the history is retired, after which no more slots may be claimed.
+	 */
+	private static final long RETIRED = Long.MIN_VALUE;
+	private final @NotNull AtomicReferenceArray<EventRecord<?>> slots;
+	private final @NotNull AtomicLong next = new AtomicLong();
+	private final @NotNull AtomicLong written = new AtomicLong();
+	private final int capacity;
+
+	/**
+	 * Create an EventHistory.
+	 *
+	 * @param capacity maximum number of records to retain
+	 */
+	EventHistory(int capacity) {
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Appends a record, evicting the oldest record if the buffer is full.
+	 *
+	 * @param record record to append
+	 * @return false if the history has been retired and the record was not appended
+	 */
+	boolean add(@NotNull EventRecord<?> record) {
+		long sequence;
+		do {
+			sequence = next.get();
+			if ((sequence & RETIRED) != 0) return false;
+		} while (!next.compareAndSet(sequence, sequence + 1));
+		record.sequence = sequence;
+		slots.set((int) (sequence % capacity), record);
+		written.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Stops this history from accepting records, then waits for appends already in progress to finish.
+	 *
+	 * @return the retained records, oldest first, or null if the history was already retired
+	 */
+	@Nullable List<@NotNull EventRecord<Object>> retire() {
+		long end;
+		do {
+			end = next.get();
+			if ((end & RETIRED) != 0) return null;
+		} while (!next.compareAndSet(end, end | RETIRED));
+		while (written.get() < end)
+			Thread.onSpinWait();
+		return getRecords(null);
+	}
+
+	/**
+	 * Gets the retained records which were triggered no earlier than {@code cutoff}, oldest first.
+	 *
+	 * @param cutoff earliest trigger time to include, or null to include all records
+	 * @return records
+	 */
+	@SuppressWarnings("unchecked")
+	<T> @NotNull List<@NotNull EventRecord<T>> getRecords(@Nullable Instant cutoff) {
+		long end = next.get() & ~RETIRED;
+		long start = Math.max(0, end - capacity);
+		List<EventRecord<T>> records = new ArrayList<>((int) (end - start));
+		for (long sequence = start; sequence < end; sequence++) {
+			EventRecord<?> record = slots.get((int) (sequence % capacity));
+			if (record == null || record.sequence != sequence) continue;
+			if (cutoff != null && record.getTriggeredAt().isBefore(cutoff)) continue;
+			records.add((EventRecord<T>) record);
+		}
+		return records;
+	}
+}
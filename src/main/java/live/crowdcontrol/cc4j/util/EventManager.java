@@ -1,6 +1,7 @@
 package live.crowdcontrol.cc4j.util;
 
 import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CCPlayer;
 import live.crowdcontrol.cc4j.CrowdControl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -8,12 +9,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
 /**
  * Manages the dispatching and invoking of events.
@@ -22,9 +23,17 @@ public final class EventManager {
 	private static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/EventManager");
 	public static final int CATCH_UP_DEFAULT = -1;
 	public static final int RECORD_LIMIT = 100;
-	private final @NotNull List<EventRecord<?>> records = new ArrayList<>(RECORD_LIMIT);
-	private final @NotNull Map<CCEventType<?>, List<Consumer<?>>> listeners = new HashMap<>();
+	/**
+	 * The number of mailbox entries handled in one go before yielding the event pool to other players.
+	 */
+	private static final int DRAIN_LIMIT = 64;
+	private final @NotNull Map<CCEventType<?>, EventHistory> records = new ConcurrentHashMap<>();
+	private final @NotNull Map<CCEventType<?>, Integer> recordLimits = new ConcurrentHashMap<>();
+	private final @NotNull ListenerTable listeners = new ListenerTable();
+	private final @NotNull Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+	private final @NotNull AtomicBoolean draining = new AtomicBoolean();
 	private final @NotNull CrowdControl parent;
+	private final @Nullable CCPlayer player;
 
 	/**
 	 * Create an EventManager.
@@ -32,43 +41,249 @@ public final class EventManager {
 	 * @param parent Crowd Control instance
 	 */
 	public EventManager(@NotNull CrowdControl parent) {
+		this(parent, null);
+	}
+
+	/**
+	 * Create an EventManager whose events are also forwarded to the {@link CrowdControl#getGlobalEventManager() global event manager}.
+	 *
+	 * @param parent Crowd Control instance
+	 * @param player player which owns this manager
+	 */
+	public EventManager(@NotNull CrowdControl parent, @Nullable CCPlayer player) {
 		this.parent = parent;
+		this.player = player;
+	}
+
+	/**
+	 * Gets the number of records of an event type which are retained for catching up new listeners.
+	 *
+	 * @param event event type
+	 * @return record limit
+	 */
+	public int getRecordLimit(@NotNull CCEventType<?> event) {
+		return recordLimits.getOrDefault(event, RECORD_LIMIT);
+	}
+
+	/**
+	 * Sets the number of records of an event type which are retained for catching up new listeners.
+	 * Each event type is retained separately, so frequent events cannot evict the records of rare ones.
+	 * Set to 0 to retain no records.
+	 *
+	 * @param event event type
+	 * @param limit record limit
+	 */
+	public void setRecordLimit(@NotNull CCEventType<?> event, int limit) {
+		if (limit < 0) throw new IllegalArgumentException("limit must not be negative");
+		recordLimits.put(event, limit);
+		resize(event);
+	}
+
+	/**
+	 * Brings the history of an event type in line with its current record limit.
+	 * The old history is retired, so that no record appended to it can be lost,
+	 * and its records are copied into a replacement which is then swapped in.
+	 *
+	 * @param event event type
+	 */
+	private void resize(@NotNull CCEventType<?> event) {
+		while (true) {
+			int limit = getRecordLimit(event);
+			EventHistory history = records.get(event);
+			if (history == null || history.getCapacity() == limit) return;
+			List<EventRecord<Object>> retained = history.retire();
+			if (retained == null) {
+				// another thread is resizing this history
+				awaitReplacement(event, history);
+				continue;
+			}
+			if (limit == 0) {
+				records.remove(event, history);
+				continue;
+			}
+			EventHistory resized = new EventHistory(limit);
+			for (EventRecord<?> record : retained)
+				resized.add(record);
+			records.replace(event, history, resized);
+		}
+	}
+
+	private void awaitReplacement(@NotNull CCEventType<?> event, @NotNull EventHistory history) {
+		while (records.get(event) == history)
+			Thread.onSpinWait();
+	}
+
+	private <T> @NotNull List<@NotNull EventRecord<T>> getRecords(@NotNull CCEventType<T> event, int catchUpPeriod) {
+		if (catchUpPeriod == 0) return Collections.emptyList();
+		EventHistory history = records.get(event);
+		if (history == null) return Collections.emptyList();
+		return history.getRecords(catchUpPeriod == -1 ? null : Instant.now().minusSeconds(catchUpPeriod));
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T> @NotNull Stream<@NotNull EventRecord<T>> getRecords(@NotNull CCEventType<T> event, int catchUpPeriod) {
-		if (catchUpPeriod == 0) return Stream.empty();
-		return records.stream()
-			.flatMap(record -> event.equals(record.getEventType()) ? Stream.of((EventRecord<T>) record) : Stream.empty())
-			.peek(record -> log.info("Found record {} for event {}", record, event))
-			.filter(record -> catchUpPeriod == -1 || !Instant.now().minusSeconds(catchUpPeriod).isBefore(record.getTriggeredAt()));
+	private <T> void invoke(@NotNull EventRecord<T> record, @NotNull EventRegistration<T> listener) {
+		parent.getEventPool().submit(() -> accept(record, listener));
 	}
 
-	private <T> void invoke(@NotNull EventRecord<T> record, @NotNull Consumer<T> listener) {
+	private <T> void invoke(@NotNull EventRecord<T> record, @NotNull EventRegistration<T> listener, @NotNull HandledCounter handled) {
+		handled.add();
 		parent.getEventPool().submit(() -> {
 			try {
-				listener.accept(record.getEventBody());
-			} catch (Exception e) {
-				log.error("Failed to dispatch event {} to listener {}", record.getEventType(), listener.getClass().getSimpleName(), e);
+				accept(record, listener);
+			} finally {
+				handled.done();
 			}
 		});
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T> void _dispatch(@NotNull CCEventType<T> event, @Nullable T body) {
-		EventRecord<T> record = new EventRecord<>(event, body);
+	private <T> void accept(@NotNull EventRecord<T> record, @NotNull EventRegistration<T> listener) {
+		if (!listener.isRegistered()) return;
+		try {
+			listener.accept(player, record.getEventBody());
+		} catch (Exception e) {
+			log.error("Failed to dispatch event {} to listener {}", record.getEventType(), listener.getListenerName(), e);
+		}
+	}
+
+	private <T> void acceptAll(@NotNull List<@NotNull EventRecord<T>> records, @NotNull EventRegistration<T> listener) {
+		if (records.isEmpty() || !listener.isRegistered()) return;
+		if (!listener.isBatch()) {
+			for (EventRecord<T> record : records)
+				accept(record, listener);
+			return;
+		}
+
+		List<T> bodies = new ArrayList<>(records.size());
+		for (EventRecord<T> record : records)
+			bodies.add(record.getEventBody());
+		try {
+			listener.acceptAll(Collections.unmodifiableList(bodies));
+		} catch (Exception e) {
+			log.error("Failed to dispatch {} events {} to listener {}", bodies.size(), listener.getEvent(), listener.getListenerName(), e);
+		}
+	}
+
+	/**
+	 * Catches a newly registered listener up on recent events,
+	 * followed by any live events which arrived in the meantime.
+	 *
+	 * @param history records to catch up on, oldest first
+	 * @param listener listener
+	 */
+	private <T> void catchUp(@NotNull List<@NotNull EventRecord<T>> history, @NotNull EventRegistration<T> listener) {
+		acceptAll(history, listener);
+		Set<EventRecord<?>> replayed = Collections.newSetFromMap(new IdentityHashMap<>(history.size()));
+		replayed.addAll(history);
+		List<EventRecord<T>> missed;
+		while (!(missed = listener.takeBacklog()).isEmpty()) {
+			// live events which were recorded before the history was read have already been replayed
+			missed.removeIf(replayed::contains);
+			// live events are passed one at a time, just as they would have been had the listener been registered already
+			for (EventRecord<T> record : missed)
+				acceptAll(Collections.singletonList(record), listener);
+		}
+	}
+
+	private <T> void deliver(@NotNull EventRecord<T> record, @NotNull EventRegistration<T> @NotNull [] listeners, @Nullable HandledCounter handled) {
+		for (EventRegistration<T> listener : listeners) {
+			if (listener.defer(record)) continue;
+			if (listener.isInline()) accept(record, listener);
+			else if (handled == null) invoke(record, listener);
+			else invoke(record, listener, handled);
+		}
+	}
+
+	private <T> void record(@NotNull EventRecord<T> record) {
+		CCEventType<T> event = record.getEventType();
+		while (true) {
+			EventHistory history = records.get(event);
+			if (history == null) {
+				int limit = getRecordLimit(event);
+				if (limit == 0) return;
+				EventHistory created = new EventHistory(limit);
+				history = records.putIfAbsent(event, created);
+				if (history == null) {
+					history = created;
+					// the limit may have changed while the history was created
+					if (getRecordLimit(event) != limit) resize(event);
+				}
+			}
+			if (history.add(record)) return;
+			// the history was retired by a resize; append to its replacement instead
+			awaitReplacement(event, history);
+		}
+	}
+
+	private boolean isOrdered() {
+		return parent.getEventDispatchMode() == EventDispatchMode.ORDERED;
+	}
+
+	/**
+	 * Adds a task to this manager's mailbox, which is drained in order by at most one thread at a time.
+	 *
+	 * @param task task to run
+	 */
+	private void enqueue(@NotNull Runnable task) {
+		mailbox.add(task);
+		if (draining.compareAndSet(false, true))
+			parent.getEventPool().execute(this::drain);
+	}
+
+	private void drain() {
+		int handled = 0;
+		while (true) {
+			Runnable task = mailbox.poll();
+			if (task == null) {
+				draining.set(false);
+				// a task may have been added after polling but before releasing the mailbox
+				if (mailbox.isEmpty() || !draining.compareAndSet(false, true)) return;
+				continue;
+			}
+
+			try {
+				task.run();
+			} catch (Exception e) {
+				log.error("Failed to handle event", e);
+			}
 
-		List<Consumer<T>> eventListeners = (List<Consumer<T>>) (Object) listeners.get(event);
-		if (eventListeners != null) {
-			for (Consumer<T> listener : eventListeners) {
-				invoke(record, listener);
+			if (++handled >= DRAIN_LIMIT) {
+				// let other players' mailboxes have a turn
+				parent.getEventPool().execute(this::drain);
+				return;
 			}
 		}
+	}
 
-		while (records.size() >= RECORD_LIMIT)
-			records.remove(0);
+	private <T> void _dispatch(@NotNull CCEventType<T> event, @Nullable T body, @Nullable Runnable onHandled) {
+		EventRecord<T> record = new EventRecord<>(event, body);
 
-		records.add(record);
+		if (isOrdered()) {
+			enqueue(() -> {
+				try {
+					record(record);
+					for (EventRegistration<T> listener : listeners.get(event))
+						accept(record, listener);
+					if (player == null) return;
+					for (EventRegistration<T> listener : parent.getGlobalEventManager().getListeners(event))
+						accept(record, listener);
+				} finally {
+					if (onHandled != null) onHandled.run();
+				}
+			});
+			return;
+		}
+
+		// recording first ensures a listener being caught up sees this event at least once, in the history it replays,
+		// its backlog, or both; catchUp drops the copies it has already replayed
+		record(record);
+
+		HandledCounter handled = onHandled == null ? null : new HandledCounter(onHandled);
+		try {
+			deliver(record, listeners.get(event), handled);
+			if (player != null)
+				deliver(record, parent.getGlobalEventManager().getListeners(event), handled);
+		} finally {
+			if (handled != null) handled.done();
+		}
 	}
 
 	/**
@@ -78,7 +293,20 @@ public final class EventManager {
 	 * @param body body to pass onto listeners
 	 */
 	public <T> void dispatch(@NotNull CCEventType<T> event, @NotNull T body) {
-		_dispatch(event, body);
+		_dispatch(event, body, null);
+	}
+
+	/**
+	 * Dispatches an event to its listeners and stores it in a temporary log,
+	 * running a callback once every listener has finished handling it.
+	 * Listeners which are still being caught up on past events are not waited for.
+	 *
+	 * @param event event type
+	 * @param body body to pass onto listeners
+	 * @param onHandled callback to run once the event has been handled
+	 */
+	public <T> void dispatch(@NotNull CCEventType<T> event, @NotNull T body, @NotNull Runnable onHandled) {
+		_dispatch(event, body, onHandled);
 	}
 
 	/**
@@ -87,7 +315,33 @@ public final class EventManager {
 	 * @param event event type
 	 */
 	public void dispatch(@NotNull CCEventType<Void> event) {
-		_dispatch(event, null);
+		_dispatch(event, null, null);
+	}
+
+	/**
+	 * Counts the listeners still handling an event, running a callback once they have all finished.
+	 * Starts at one on behalf of the dispatching thread.
+	 */
+	private static final class HandledCounter {
+		private final @NotNull AtomicInteger remaining = new AtomicInteger(1);
+		private final @NotNull Runnable onHandled;
+
+		private HandledCounter(@NotNull Runnable onHandled) {
+			this.onHandled = onHandled;
+		}
+
+		void add() {
+			remaining.incrementAndGet();
+		}
+
+		void done() {
+			if (remaining.decrementAndGet() != 0) return;
+			try {
+				onHandled.run();
+			} catch (Exception e) {
+				log.error("Failed to run event completion callback", e);
+			}
+		}
 	}
 
 	/**
@@ -95,15 +349,89 @@ public final class EventManager {
 	 * <p>
 	 * {@code catchUpPeriod} determines the time in seconds in which to look for recently sent events
 	 * to catch the listener up on events it just missed.
-	 * Set to 0 to disable, or -1 to fetch all records (within the {@value #RECORD_LIMIT} most recent).
+	 * Set to 0 to disable, or -1 to fetch all records (within the {@link #getRecordLimit(CCEventType) record limit}).
 	 *
 	 * @param event the type of event to register for
 	 * @param listener the function to call as necessary
 	 * @param catchUpPeriod duration in seconds or -1
+	 * @return handle which may be used to unregister the listener
 	 */
-	public <T> void registerEventConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<T> listener, int catchUpPeriod) {
-		listeners.computeIfAbsent(event, $ -> new ArrayList<>()).add(listener);
-		getRecords(event, catchUpPeriod).forEachOrdered(record -> invoke(record, listener));
+	public <T> @NotNull EventRegistration<T> registerEventConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<T> listener, int catchUpPeriod) {
+		return registerEventConsumer(event, listener, catchUpPeriod, false);
+	}
+
+	/**
+	 * Registers a listener to be called as appropriate.
+	 * <p>
+	 * An {@code inline} listener is invoked directly on the thread which dispatches the event
+	 * (such as the socket's receiving thread) instead of being handed off to the event pool.
+	 * This saves a thread hop for trivial handlers, but inline listeners must be fast and must never block.
+	 * Exceptions thrown by an inline listener are logged and do not affect other listeners.
+	 * In {@link EventDispatchMode#ORDERED ordered} mode, inline listeners still run in order with other listeners.
+	 * <p>
+	 * See {@link #registerEventConsumer(CCEventType, Consumer, int)} for more information on the catch-up period.
+	 *
+	 * @param event the type of event to register for
+	 * @param listener the function to call as necessary
+	 * @param catchUpPeriod duration in seconds or -1
+	 * @param inline whether to invoke the listener on the dispatching thread
+	 * @return handle which may be used to unregister the listener
+	 */
+	public <T> @NotNull EventRegistration<T> registerEventConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<T> listener, int catchUpPeriod, boolean inline) {
+		return register(new EventRegistration<>(listeners, event, listener, inline, catchUpPeriod != 0 && !isOrdered()), catchUpPeriod);
+	}
+
+	/**
+	 * Registers a listener which receives events in batches.
+	 * <p>
+	 * The events which the listener is caught up on are passed in one batch, oldest first.
+	 * Each event dispatched after that is passed in a batch of its own.
+	 * See {@link #registerEventConsumer(CCEventType, Consumer, int)} for more information on the catch-up period.
+	 *
+	 * @param event the type of event to register for
+	 * @param listener the function to call as necessary
+	 * @param catchUpPeriod duration in seconds or -1
+	 * @return handle which may be used to unregister the listener
+	 */
+	public <T> @NotNull EventRegistration<T> registerEventBatchConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<List<T>> listener, int catchUpPeriod) {
+		return register(EventRegistration.batch(listeners, event, listener, false, catchUpPeriod != 0 && !isOrdered()), catchUpPeriod);
+	}
+
+	/**
+	 * Registers a listener which receives events in batches.
+	 * <p>
+	 * See {@link #registerEventBatchConsumer(CCEventType, Consumer, int)} for more information.
+	 *
+	 * @param event the type of event to register for
+	 * @param listener the function to call as necessary
+	 * @return handle which may be used to unregister the listener
+	 */
+	public <T> @NotNull EventRegistration<T> registerEventBatchConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<List<T>> listener) {
+		return registerEventBatchConsumer(event, listener, CATCH_UP_DEFAULT);
+	}
+
+	private <T> @NotNull EventRegistration<T> register(@NotNull EventRegistration<T> registration, int catchUpPeriod) {
+		CCEventType<T> event = registration.getEvent();
+		if (isOrdered()) {
+			// registering inside the mailbox guarantees the listener sees each event exactly once, in order
+			enqueue(() -> {
+				listeners.add(registration);
+				acceptAll(getRecords(event, catchUpPeriod), registration);
+			});
+			return registration;
+		}
+
+		if (catchUpPeriod == 0) {
+			listeners.add(registration);
+			return registration;
+		}
+
+		// live events are held back by the registration until the history read after this point has been replayed
+		listeners.add(registration);
+		List<EventRecord<T>> history = getRecords(event, catchUpPeriod);
+		if (registration.isInline()) catchUp(history, registration);
+		else parent.getEventPool().execute(() -> catchUp(history, registration));
+		return registration;
 	}
 
 	/**
@@ -114,9 +442,10 @@ public final class EventManager {
 	 *
 	 * @param event the type of event to register for
 	 * @param listener the function to call as necessary
+	 * @return handle which may be used to unregister the listener
 	 */
-	public <T> void registerEventConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<T> listener) {
-		registerEventConsumer(event, listener, CATCH_UP_DEFAULT);
+	public <T> @NotNull EventRegistration<T> registerEventConsumer(@NotNull CCEventType<T> event, @NotNull Consumer<T> listener) {
+		return registerEventConsumer(event, listener, CATCH_UP_DEFAULT);
 	}
 
 	/**
@@ -124,14 +453,15 @@ public final class EventManager {
 	 * <p>
 	 * {@code catchUpPeriod} determines the time in seconds in which to look for recently sent events
 	 * to catch the listener up on events it just missed.
-	 * Set to 0 to disable, or -1 to fetch all records (within the {@value #RECORD_LIMIT} most recent).
+	 * Set to 0 to disable, or -1 to fetch all records (within the {@link #getRecordLimit(CCEventType) record limit}).
 	 *
 	 * @param event the type of event to register for
 	 * @param listener the function to call as necessary
 	 * @param catchUpPeriod duration in seconds or -1
+	 * @return handle which may be used to unregister the listener
 	 */
-	public void registerEventRunnable(@NotNull CCEventType<?> event, @NotNull Runnable listener, int catchUpPeriod) {
-		registerEventConsumer(event, $ -> listener.run(), catchUpPeriod);
+	public @NotNull EventRegistration<?> registerEventRunnable(@NotNull CCEventType<?> event, @NotNull Runnable listener, int catchUpPeriod) {
+		return registerEventConsumer(event, $ -> listener.run(), catchUpPeriod);
 	}
 
 	/**
@@ -142,8 +472,9 @@ public final class EventManager {
 	 *
 	 * @param event the type of event to register for
 	 * @param listener the function to call as necessary
+	 * @return handle which may be used to unregister the listener
 	 */
-	public void registerEventRunnable(@NotNull CCEventType<?> event, @NotNull Runnable listener) {
-		registerEventRunnable(event, listener, CATCH_UP_DEFAULT);
+	public @NotNull EventRegistration<?> registerEventRunnable(@NotNull CCEventType<?> event, @NotNull Runnable listener) {
+		return registerEventRunnable(event, listener, CATCH_UP_DEFAULT);
 	}
 }
@@ -13,6 +13,8 @@ final class EventRecord<T> {
 	private final @NotNull Instant triggeredAt;
 	private final @NotNull CCEventType<T> eventType;
 	private final @Nullable T eventBody;
+	// assigned by the EventHistory which retains this record
+	volatile long sequence = -1;
 
 	public EventRecord(@NotNull CCEventType<T> eventType, @Nullable T eventBody) {
 		this.triggeredAt = Instant.now();
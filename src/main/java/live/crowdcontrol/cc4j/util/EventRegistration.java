@@ -0,0 +1,145 @@
+package live.crowdcontrol.cc4j.util;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CCPlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A handle to a listener registered with an {@link EventManager} or {@link GlobalEventManager}.
+ *
+ * @param <T> event body type
+ */
+public final class EventRegistration<T> {
+	private final @NotNull ListenerTable table;
+	private final @NotNull CCEventType<T> event;
+	private final @NotNull BiConsumer<@Nullable CCPlayer, T> listener;
+	private final @NotNull String listenerName;
+	private final @Nullable Consumer<List<T>> batchListener;
+	private final boolean inline;
+	private volatile boolean registered = true;
+	/**
+	 * Whether live events are being held back until the listener has been caught up.
+	 */
+	private volatile boolean catchingUp;
+	private @Nullable List<EventRecord<T>> backlog; // guarded by this
+
+	EventRegistration(@NotNull ListenerTable table, @NotNull CCEventType<T> event, @NotNull Consumer<T> listener, boolean inline, boolean catchingUp) {
+		this(table, event, (player, body) -> listener.accept(body), null, listener.getClass().getSimpleName(), inline, catchingUp);
+	}
+
+	EventRegistration(@NotNull ListenerTable table, @NotNull CCEventType<T> event, @NotNull BiConsumer<@Nullable CCPlayer, T> listener, boolean inline) {
+		this(table, event, listener, null, listener.getClass().getSimpleName(), inline, false);
+	}
+
+	private EventRegistration(@NotNull ListenerTable table, @NotNull CCEventType<T> event, @NotNull BiConsumer<@Nullable CCPlayer, T> listener, @Nullable Consumer<List<T>> batchListener, @NotNull String listenerName, boolean inline, boolean catchingUp) {
+		this.table = table;
+		this.event = event;
+		this.listener = listener;
+		this.batchListener = batchListener;
+		this.listenerName = listenerName;
+		this.inline = inline;
+		this.catchingUp = catchingUp;
+		if (catchingUp) this.backlog = new ArrayList<>();
+	}
+
+	static <T> @NotNull EventRegistration<T> batch(@NotNull ListenerTable table, @NotNull CCEventType<T> event, @NotNull Consumer<List<T>> listener, boolean inline, boolean catchingUp) {
+		return new EventRegistration<>(table, event, (player, body) -> listener.accept(Collections.singletonList(body)), listener, listener.getClass().getSimpleName(), inline, catchingUp);
+	}
+
+	/**
+	 * Gets the type of event this listener is registered for.
+	 *
+	 * @return event type
+	 */
+	public @NotNull CCEventType<T> getEvent() {
+		return event;
+	}
+
+	void accept(@Nullable CCPlayer player, T body) {
+		listener.accept(player, body);
+	}
+
+	boolean isBatch() {
+		return batchListener != null;
+	}
+
+	void acceptAll(@NotNull List<T> bodies) {
+		assert batchListener != null : "Not a batch listener";
+		batchListener.accept(bodies);
+	}
+
+	/**
+	 * Holds back a live event if this listener is still being caught up.
+	 *
+	 * @param record live event
+	 * @return whether the event was held back
+	 */
+	boolean defer(@NotNull EventRecord<T> record) {
+		if (!catchingUp) return false;
+		synchronized (this) {
+			if (backlog == null) return false;
+			backlog.add(record);
+			return true;
+		}
+	}
+
+	/**
+	 * Takes the live events which were held back while catching up.
+	 * Once there are none left, live events are no longer held back.
+	 *
+	 * @return held back events, or an empty list if catching up has finished
+	 */
+	synchronized @NotNull List<EventRecord<T>> takeBacklog() {
+		List<EventRecord<T>> taken = backlog;
+		if (taken == null || taken.isEmpty()) {
+			backlog = null;
+			catchingUp = false;
+			return Collections.emptyList();
+		}
+		backlog = new ArrayList<>();
+		return taken;
+	}
+
+	@NotNull
+	String getListenerName() {
+		return listenerName;
+	}
+
+	/**
+	 * Determines whether this listener is invoked directly on the dispatching thread.
+	 *
+	 * @return whether inline
+	 */
+	public boolean isInline() {
+		return inline;
+	}
+
+	/**
+	 * Determines whether this listener is still registered.
+	 *
+	 * @return whether registered
+	 */
+	public boolean isRegistered() {
+		return registered;
+	}
+
+	/**
+	 * Unregisters this listener.
+	 * The listener will not be invoked for any event which has not yet been delivered to it.
+	 *
+	 * @return whether the listener was registered before this call
+	 */
+	public synchronized boolean unregister() {
+		if (!registered) return false;
+		registered = false;
+		table.remove(this);
+		return true;
+	}
+}
@@ -0,0 +1,62 @@
+package live.crowdcontrol.cc4j.util;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CCPlayer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Receives the events of every player's {@link EventManager}.
+ * <p>
+ * Listeners registered here are invoked alongside each player's own listeners, using the same
+ * {@link EventDispatchMode dispatch mode}, and are passed the player which the event belongs to.
+ * Unlike per-player listeners, global listeners are not caught up on previously dispatched events.
+ */
+public final class GlobalEventManager {
+	private final @NotNull ListenerTable listeners = new ListenerTable();
+
+	<T> @NotNull EventRegistration<T> @NotNull [] getListeners(@NotNull CCEventType<T> event) {
+		return listeners.get(event);
+	}
+
+	/**
+	 * Registers a listener to be called whenever any player dispatches the given event.
+	 *
+	 * @param event the type of event to register for
+	 * @param listener the function to call as necessary
+	 * @return handle which may be used to unregister the listener
+	 */
+	public <T> @NotNull EventRegistration<T> registerEventConsumer(@NotNull CCEventType<T> event, @NotNull BiConsumer<CCPlayer, T> listener) {
+		return registerEventConsumer(event, listener, false);
+	}
+
+	/**
+	 * Registers a listener to be called whenever any player dispatches the given event.
+	 * <p>
+	 * See {@link EventManager#registerEventConsumer(CCEventType, Consumer, int, boolean)}
+	 * for more information on inline listeners.
+	 *
+	 * @param event the type of event to register for
+	 * @param listener the function to call as necessary
+	 * @param inline whether to invoke the listener on the dispatching thread
+	 * @return handle which may be used to unregister the listener
+	 */
+	public <T> @NotNull EventRegistration<T> registerEventConsumer(@NotNull CCEventType<T> event, @NotNull BiConsumer<CCPlayer, T> listener, boolean inline) {
+		EventRegistration<T> registration = new EventRegistration<>(listeners, event, listener, inline);
+		listeners.add(registration);
+		return registration;
+	}
+
+	/**
+	 * Registers a listener to be called whenever any player dispatches the given event.
+	 *
+	 * @param event the type of event to register for
+	 * @param listener the function to call as necessary
+	 * @return handle which may be used to unregister the listener
+	 */
+	public @NotNull EventRegistration<?> registerEventRunnable(@NotNull CCEventType<?> event, @NotNull Consumer<CCPlayer> listener) {
+		return registerEventConsumer(event, (player, $) -> listener.accept(player), false);
+	}
+}
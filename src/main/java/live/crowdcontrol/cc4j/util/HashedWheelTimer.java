@@ -0,0 +1,222 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link TaskTimer} backed by a hashed timing wheel.
+ * <p>
+ * Scheduling and cancelling are constant-time operations, making this timer well suited to large numbers of
+ * short-lived timeouts which are usually cancelled before they fire.
+ * In exchange, tasks are run with a precision of one tick rather than at their exact deadline.
+ * <p>
+ * A single thread advances the wheel; expired tasks are handed off to the provided executor to be run.
+ */
+public final class HashedWheelTimer implements TaskTimer {
+	private static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/HashedWheelTimer");
+	public static final long DEFAULT_TICK_MILLIS = 10;
+	public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+	private final @NotNull Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+	private final @Nullable Timeout @NotNull [] wheel;
+	private final int mask;
+	private final long tickNanos;
+	private final long startTime;
+	private final @NotNull Executor executor;
+	private final @NotNull Thread worker;
+	private volatile boolean running = true;
+	private long tick = 0;
+
+	/**
+	 * Creates a timer which ticks every {@value #DEFAULT_TICK_MILLIS} milliseconds.
+	 *
+	 * @param executor executor on which expired tasks are run
+	 */
+	public HashedWheelTimer(@NotNull Executor executor) {
+		this(executor, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+	}
+
+	/**
+	 * Creates a timer.
+	 *
+	 * @param executor      executor on which expired tasks are run
+	 * @param tickDuration  duration of one tick
+	 * @param unit          unit of the tick duration
+	 * @param ticksPerWheel number of slots in the wheel, rounded up to a power of two
+	 */
+	public HashedWheelTimer(@NotNull Executor executor, long tickDuration, @NotNull TimeUnit unit, int ticksPerWheel) {
+		if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration must be positive");
+		if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30");
+		int size = Integer.highestOneBit(ticksPerWheel);
+		if (size < ticksPerWheel) size <<= 1;
+		this.wheel = new Timeout[size];
+		this.mask = size - 1;
+		this.tickNanos = unit.toNanos(tickDuration);
+		this.executor = executor;
+		this.startTime = System.nanoTime();
+		this.worker = new Thread(this::run, "CrowdControl-Timer");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	@Override
+	public @NotNull ScheduledFuture<?> schedule(@NotNull Runnable task, long delay, @NotNull TimeUnit unit) {
+		long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+		Timeout timeout = new Timeout(task, deadline);
+		pending.add(timeout);
+		// checked after enqueueing, as a close racing with this call may have already drained the queue for the last time
+		if (!running) timeout.cancel(false);
+		return timeout;
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		worker.interrupt();
+	}
+
+	private void run() {
+		while (running) {
+			long sleep = startTime + (tick + 1) * tickNanos - System.nanoTime();
+			if (sleep > 0) {
+				LockSupport.parkNanos(this, sleep);
+				continue;
+			}
+			transferPending();
+			expire((int) (tick & mask));
+			tick++;
+		}
+
+		Timeout timeout;
+		while ((timeout = pending.poll()) != null)
+			timeout.cancel(false);
+		for (int slot = 0; slot <= mask; slot++) {
+			for (timeout = wheel[slot]; timeout != null; timeout = timeout.next)
+				timeout.cancel(false);
+			wheel[slot] = null;
+		}
+	}
+
+	private void transferPending() {
+		Timeout timeout;
+		while ((timeout = pending.poll()) != null) {
+			if (timeout.isCancelled()) continue;
+			// timeouts which are already due go into the current slot
+			long ticks = Math.max(timeout.deadline / tickNanos, tick);
+			timeout.rounds = (ticks - tick) / wheel.length;
+			int slot = (int) (ticks & mask);
+			timeout.next = wheel[slot];
+			wheel[slot] = timeout;
+		}
+	}
+
+	private void expire(int slot) {
+		Timeout previous = null;
+		Timeout timeout = wheel[slot];
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.isCancelled() || timeout.rounds <= 0) {
+				// unlink
+				if (previous == null) wheel[slot] = next;
+				else previous.next = next;
+				timeout.next = null;
+				if (!timeout.isCancelled()) timeout.expire();
+			} else {
+				timeout.rounds--;
+				previous = timeout;
+			}
+			timeout = next;
+		}
+	}
+
+	private final class Timeout implements ScheduledFuture<Object> {
+		private static final int WAITING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+		private static final @NotNull AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+		/**
+		 * Result of a cancelled timeout.
+		 * Cancelling through {@link CompletableFuture#cancel} would construct an exception on every call,
+		 * which dominates the cost of cancelling, so the exception is only created for callers of {@link #get()}.
+		 */
+		private static final @NotNull Object CANCELLED_RESULT = new Object();
+		private volatile int state = WAITING;
+		private final @NotNull CompletableFuture<Object> result = new CompletableFuture<>();
+		private final @NotNull Runnable task;
+		private final long deadline;
+		// only accessed by the worker thread
+		private @Nullable Timeout next;
+		private long rounds;
+
+		private Timeout(@NotNull Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		private void expire() {
+			if (!STATE.compareAndSet(this, WAITING, EXPIRED)) return;
+			try {
+				executor.execute(() -> {
+					try {
+						task.run();
+						result.complete(null);
+					} catch (Throwable e) {
+						log.error("Failed to run scheduled task", e);
+						result.completeExceptionally(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				result.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		public long getDelay(@NotNull TimeUnit unit) {
+			return unit.convert(deadline - (System.nanoTime() - startTime), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(@NotNull Delayed o) {
+			if (o == this) return 0;
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!STATE.compareAndSet(this, WAITING, CANCELLED)) return false;
+			result.complete(CANCELLED_RESULT);
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		@Override
+		public boolean isDone() {
+			return result.isDone();
+		}
+
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			return unwrap(result.get());
+		}
+
+		@Override
+		public Object get(long timeout, @NotNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return unwrap(result.get(timeout, unit));
+		}
+
+		private static @Nullable Object unwrap(@Nullable Object result) {
+			if (result == CANCELLED_RESULT) throw new CancellationException();
+			return result;
+		}
+	}
+}
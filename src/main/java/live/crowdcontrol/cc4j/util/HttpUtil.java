@@ -7,12 +7,14 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
@@ -20,7 +22,11 @@ import static live.crowdcontrol.cc4j.websocket.ConnectedPlayer.JACKSON;
 
 public class HttpUtil {
 	public static final @NotNull URL OPEN_API_URL;
-	public static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+	public static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_2)
+		.connectTimeout(Duration.ofSeconds(10))
+		.build();
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
 
 	static {
 		try {
@@ -30,52 +36,61 @@ public class HttpUtil {
 		}
 	}
 
-	private final @NotNull CrowdControl parent;
+	public HttpUtil() {
+	}
 
+	/**
+	 * @deprecated requests are sent asynchronously and no longer run on the parent's threads
+	 */
+	@Deprecated
 	public HttpUtil(@NotNull CrowdControl parent) {
-		this.parent = parent;
+		this();
 	}
 
 	private <T> @NotNull CompletableFuture<T> apiCall(@NotNull String method, @NotNull String spec, @NotNull Function<InputStream, T> output, @Nullable String token, @Nullable Object data) {
-		return CompletableFuture.supplyAsync(() -> {
-			HttpURLConnection con = null;
-			try {
-				URL url = new URL(OPEN_API_URL, spec);
-				con = (HttpURLConnection) url.openConnection();
-				con.setRequestMethod(method);
-				con.setRequestProperty("User-Agent", "crowdcontrol4j");
-				con.setRequestProperty("Content-Type", "application/json");
-				if (token != null) {
-					con.setRequestProperty("Authorization", "cc-auth-token " + token);
-				}
-				con.setConnectTimeout(10000);
-				con.setReadTimeout(10000);
-				if (data != null) {
-					con.setRequestProperty("Accept", "application/json");
-					con.setDoOutput(true);
-					try (OutputStream os = con.getOutputStream()) {
-//						log.info("Outputting to {}: {}", spec, JACKSON.writeValueAsString(data));
-						JACKSON.writeValue(os, data);
-					}
-				}
-				T out = output.apply(con.getInputStream());
-				if (con.getResponseCode() != 200)
-					throw new IllegalStateException("Server returned code " + con.getResponseCode()); // TODO: this is jank !
-				return out;
-			} catch (Exception e) {
-				throw new RuntimeException(e);
-			} finally {
-				if (con != null) con.disconnect();
+		HttpRequest request;
+		try {
+			HttpRequest.Builder builder = HttpRequest.newBuilder(OPEN_API_URL.toURI().resolve(spec))
+				.timeout(TIMEOUT)
+				.header("User-Agent", "crowdcontrol4j")
+				.header("Content-Type", "application/json");
+			if (token != null) {
+				builder.header("Authorization", "cc-auth-token " + token);
 			}
-		}, parent.getEffectPool());
+			if (data != null) {
+				builder.header("Accept", "application/json");
+//				log.info("Outputting to {}: {}", spec, JACKSON.writeValueAsString(data));
+				builder.method(method, HttpRequest.BodyPublishers.ofByteArray(JACKSON.writeValueAsBytes(data)));
+			} else {
+				builder.method(method, HttpRequest.BodyPublishers.noBody());
+			}
+			request = builder.build();
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return HTTP_CLIENT.sendAsync(request, info -> {
+			if (info.statusCode() != 200) {
+				return HttpResponse.BodySubscribers.<Void, InputStream>mapping(HttpResponse.BodySubscribers.discarding(), $ -> {
+					throw new IllegalStateException("Server returned code " + info.statusCode()); // TODO: this is jank !
+				});
+			}
+			return HttpResponse.BodySubscribers.ofInputStream();
+		}).thenApplyAsync(response -> {
+			// the body is parsed as it streams in, on a pool thread, as reading it blocks until it arrives
+			try (InputStream body = response.body()) {
+				return output.apply(body);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
 	}
 
-	private String asString(InputStream stream) {
+	private String asString(InputStream input) {
 		try {
-			byte[] bytes = stream.readAllBytes();
-			return new String(bytes, StandardCharsets.UTF_8);
-		} catch (Exception e) {
-			throw new RuntimeException("Failed to read as string", e);
+			return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 
@@ -84,7 +99,7 @@ public class HttpUtil {
 			try {
 				return JACKSON.readValue(input, output);
 			} catch (IOException e) {
-				throw new RuntimeException(e);
+				throw new UncheckedIOException(e);
 			}
 		};
 	}
@@ -94,7 +109,7 @@ public class HttpUtil {
 			try {
 				return JACKSON.readValue(input, output);
 			} catch (IOException e) {
-				throw new RuntimeException(e);
+				throw new UncheckedIOException(e);
 			}
 		};
 	}
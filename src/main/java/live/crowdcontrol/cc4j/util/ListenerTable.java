@@ -0,0 +1,64 @@
+package live.crowdcontrol.cc4j.util;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Listeners indexed by {@link CCEventType#getOrdinal() event ordinal}.
+ * <p>
+ * Both the table and its rows are copied on write so that looking up listeners never locks.
+ */
+final class ListenerTable {
+	private static final @NotNull EventRegistration<?> @NotNull [] NO_LISTENERS = new EventRegistration<?>[0];
+	private volatile @Nullable EventRegistration<?> @NotNull [] @NotNull [] rows = new EventRegistration<?>[0][];
+
+	/**
+	 * Gets a snapshot of the listeners registered for an event type.
+	 *
+	 * @param event event type
+	 * @return listeners, which must not be modified
+	 */
+	@SuppressWarnings("unchecked")
+	<T> @NotNull EventRegistration<T> @NotNull [] get(@NotNull CCEventType<T> event) {
+		EventRegistration<?>[][] table = rows;
+		int ordinal = event.getOrdinal();
+		if (ordinal >= table.length || table[ordinal] == null) return (EventRegistration<T>[]) NO_LISTENERS;
+		return (EventRegistration<T>[]) table[ordinal];
+	}
+
+	synchronized void add(@NotNull EventRegistration<?> registration) {
+		// the registration may have been cancelled before an ordered registration reached the mailbox
+		if (!registration.isRegistered()) return;
+		int ordinal = registration.getEvent().getOrdinal();
+		EventRegistration<?>[][] table = rows;
+		if (ordinal >= table.length)
+			table = Arrays.copyOf(table, Math.max(ordinal + 1, CCEventType.getOrdinalCount()));
+		else
+			table = table.clone();
+		EventRegistration<?>[] row = table[ordinal] == null ? NO_LISTENERS : table[ordinal];
+		row = Arrays.copyOf(row, row.length + 1);
+		row[row.length - 1] = registration;
+		table[ordinal] = row;
+		rows = table;
+	}
+
+	synchronized void remove(@NotNull EventRegistration<?> registration) {
+		int ordinal = registration.getEvent().getOrdinal();
+		EventRegistration<?>[][] table = rows;
+		if (ordinal >= table.length || table[ordinal] == null) return;
+		EventRegistration<?>[] row = table[ordinal];
+		for (int i = 0; i < row.length; i++) {
+			if (row[i] != registration) continue;
+			EventRegistration<?>[] shrunk = new EventRegistration<?>[row.length - 1];
+			System.arraycopy(row, 0, shrunk, 0, i);
+			System.arraycopy(row, i + 1, shrunk, i, row.length - i - 1);
+			table = table.clone();
+			table[ordinal] = shrunk;
+			rows = table;
+			return;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Information related to a player's connection recovering after a disconnect
+ */
+public final class RecoveryData {
+	private final @NotNull Duration downtime;
+	private final @NotNull Set<String> topics;
+	private final boolean sessionResumed;
+
+	public RecoveryData(@NotNull Duration downtime, @NotNull Set<String> topics, boolean sessionResumed) {
+		this.downtime = downtime;
+		this.topics = Set.copyOf(topics);
+		this.sessionResumed = sessionResumed;
+	}
+
+	/**
+	 * Gets the time between the connection dropping and every subscription being confirmed on the new connection.
+	 *
+	 * @return downtime
+	 */
+	public @NotNull Duration getDowntime() {
+		return downtime;
+	}
+
+	/**
+	 * Gets the topics which were resubscribed to.
+	 *
+	 * @return topics
+	 */
+	public @NotNull Set<String> getTopics() {
+		return topics;
+	}
+
+	/**
+	 * Returns whether the player had an active game session, which carries on unchanged after the reconnect.
+	 *
+	 * @return session resumed
+	 */
+	public boolean isSessionResumed() {
+		return sessionResumed;
+	}
+}
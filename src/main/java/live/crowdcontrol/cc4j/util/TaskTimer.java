@@ -0,0 +1,44 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules delayed tasks such as effect timeouts, timed effect completions, and socket keepalives.
+ *
+ * @see HashedWheelTimer
+ */
+@FunctionalInterface
+public interface TaskTimer {
+
+	/**
+	 * Creates a timer which schedules tasks on the provided executor.
+	 *
+	 * @param executor scheduled executor service
+	 * @return timer
+	 */
+	static @NotNull TaskTimer of(@NotNull ScheduledExecutorService executor) {
+		return executor::schedule;
+	}
+
+	/**
+	 * Schedules a task to run once after the given delay.
+	 *
+	 * @param task  task to run
+	 * @param delay delay before running the task
+	 * @param unit  unit of the delay
+	 * @return handle which may be used to cancel the task or query its remaining delay
+	 */
+	@NotNull
+	ScheduledFuture<?> schedule(@NotNull Runnable task, long delay, @NotNull TimeUnit unit);
+
+	/**
+	 * Stops this timer.
+	 * Tasks which have not yet run are discarded.
+	 */
+	default void close() {
+	}
+}
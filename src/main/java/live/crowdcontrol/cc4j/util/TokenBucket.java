@@ -0,0 +1,57 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rate limiter which refills permits at a steady rate up to a maximum burst.
+ * <p>
+ * Permits are reserved rather than waited for: a caller which exceeds the rate is told how long to delay its work,
+ * and later callers queue up behind it, so no thread ever blocks on the limiter.
+ */
+@ApiStatus.Internal
+public final class TokenBucket {
+	private final double permitsPerNano;
+	private final double burst;
+	private double available;
+	private long lastRefill;
+
+	/**
+	 * Creates a full token bucket.
+	 *
+	 * @param permitsPerSecond rate at which permits are refilled
+	 * @param burst            maximum number of permits which may be stored
+	 */
+	public TokenBucket(double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive");
+		if (burst <= 0) throw new IllegalArgumentException("burst must be positive");
+		this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.burst = burst;
+		this.available = burst;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Gets the rate at which permits are refilled.
+	 *
+	 * @return permits per second
+	 */
+	public double getPermitsPerSecond() {
+		return permitsPerNano * TimeUnit.SECONDS.toNanos(1);
+	}
+
+	/**
+	 * Reserves a permit.
+	 *
+	 * @return the delay in nanoseconds after which the permit may be used, or 0 if it may be used immediately
+	 */
+	public synchronized long reserve() {
+		long now = System.nanoTime();
+		available = Math.min(burst, available + (now - lastRefill) * permitsPerNano);
+		lastRefill = now;
+		available -= 1;
+		if (available >= 0) return 0;
+		return (long) Math.ceil(-available / permitsPerNano);
+	}
+}
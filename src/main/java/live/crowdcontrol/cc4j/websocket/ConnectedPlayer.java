@@ -1,7 +1,6 @@
 package live.crowdcontrol.cc4j.websocket;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -9,9 +8,8 @@ import live.crowdcontrol.cc4j.CCEventType;
 import live.crowdcontrol.cc4j.CCMessage;
 import live.crowdcontrol.cc4j.CCPlayer;
 import live.crowdcontrol.cc4j.CrowdControl;
-import live.crowdcontrol.cc4j.util.CloseData;
 import live.crowdcontrol.cc4j.util.EventManager;
-import live.crowdcontrol.cc4j.util.HttpUtil;
+import live.crowdcontrol.cc4j.util.RecoveryData;
 import live.crowdcontrol.cc4j.util.TokenUtils;
 import live.crowdcontrol.cc4j.websocket.data.*;
 import live.crowdcontrol.cc4j.websocket.http.*;
@@ -23,19 +21,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.net.URI;
-import java.net.http.WebSocket;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -43,29 +38,34 @@ import java.util.stream.Stream;
  * A player connected to the server.
  */
 @ApiStatus.Internal
-public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
+public class ConnectedPlayer implements CCPlayer {
 	public static final @NotNull ObjectMapper JACKSON;
 	protected static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/ConnectedPlayer");
-	protected final ReentrantLock lock = new ReentrantLock();
-	protected final @NotNull Set<String> subscriptions = new HashSet<>();
-	protected final Map<String, Boolean> visible = new HashMap<>();
-	protected final Map<String, Boolean> available = new HashMap<>();
+	/**
+	 * Topics confirmed on the connection of {@link #subscriptionGeneration}.
+	 */
+	protected final @NotNull Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+	protected final @NotNull Set<String> pendingSubscriptions = ConcurrentHashMap.newKeySet();
+	protected volatile int subscriptionGeneration = 0;
+	/**
+	 * When the player's connection dropped, in {@link System#nanoTime()} units, or 0 if it has not dropped since last recovering.
+	 */
+	protected volatile long disconnectedAt = 0L;
+	protected final Map<String, Boolean> visible = new ConcurrentHashMap<>();
+	protected final Map<String, Boolean> available = new ConcurrentHashMap<>();
 	protected final @NotNull EventManager eventManager;
 	protected final @NotNull UUID uuid;
 	protected final @NotNull Path tokenPath;
 	protected final @NotNull CrowdControl parent;
-	protected @NotNull StringBuilder pendingText = new StringBuilder();
-	protected @Nullable WebSocket ws;
+	protected @Nullable PubSubSocket socket;
 	protected @Nullable String authCode;
 	protected @Nullable String token;
 	protected @Nullable UserToken userToken;
 	protected @Nullable String gameSessionID;
 	protected @Nullable String lastGameSessionID;
 	protected @Nullable CompletableFuture<Void> pendingAuthCode;
-	protected int sleep = 1;
-	protected long disconnectTriggeredAt = 0L;
-	protected ScheduledFuture<?> keepAlive = null;
-	protected ScheduledFuture<?> timeout = null;
+	protected final @NotNull List<PendingResponse> pendingResponses = new ArrayList<>();
+	protected @Nullable ScheduledFuture<?> responseFlush;
 
 	static {
 		ObjectMapper mapper = new ObjectMapper();
@@ -78,61 +78,32 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 		JACKSON = mapper;
 	}
 
-	// WebSocket Impl
-
 	public ConnectedPlayer(@NotNull UUID uuid, @NotNull CrowdControl parent) {
 		this.parent = parent;
 		this.uuid = uuid;
 		this.tokenPath = parent.getDataFolder().resolve(uuid + ".token");
-		this.eventManager = new EventManager(parent);
+		this.eventManager = new EventManager(parent, this);
 
 		this.eventManager.registerEventConsumer(CCEventType.CONNECTED, handshake -> {
 //			log.info("Connected event");
-			// Sleep for a bit to workaround issue where socket appears to still be opening
-			long wait = 1L;
-			while (!canSend() && wait <= 10) {
-				try {
-					Thread.sleep(wait * 500L);
-				} catch (InterruptedException ignored) {
-				} finally {
-					wait *= 2;
+			PubSubSocket socket = this.socket;
+			if (socket == null) return;
+			socket.whenReady().whenComplete(($, e) -> {
+				if (e != null) {
+					log.warn("Socket is not opening, session start may fail");
+					return;
 				}
-			}
-			if (!canSend()) {
-				log.warn("Socket is not opening, session start may fail");
-			}
-			subscribe(); // since token load may have triggered already
-			regenerateAuthCode();
-			resetKeepAlive();
-		});
-		this.eventManager.registerEventConsumer(CCEventType.DISCONNECTED, data -> {
-			if (timeout != null) {
-				timeout.cancel(false);
-				timeout = null;
-			}
-			this.ws = null;
-			// check that the player hasn't just left
-			if (this.parent.getPlayer(uuid) != this) return;
-			this.eventManager.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.WARN, "Reconnecting to socket in " + sleep + " second(s)"));
-			try {
-				Thread.sleep(sleep * 1000L);
-			} catch (InterruptedException ignored) {
-			}
-			sleep *= 2;
-			connect(); // reconnect!
+				subscribe(); // since token load may have triggered already
+				regenerateAuthCode();
+			});
 		});
 		this.eventManager.registerEventConsumer(CCEventType.GENERATED_AUTH_CODE, payload -> {
-			sleep = 1;
-			if (timeout != null) {
-				timeout.cancel(false);
-				timeout = null;
-			}
 			this.authCode = payload.code();
 			if (pendingAuthCode != null) {
 				pendingAuthCode.complete(null);
 				pendingAuthCode = null;
 			}
-		});
+		}, EventManager.CATCH_UP_DEFAULT, true);
 		this.eventManager.registerEventConsumer(CCEventType.REDEEMED_AUTH_CODE, payload -> {
 			parent.getHttpUtil().apiPost(
 				"/auth/application/token",
@@ -160,156 +131,77 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 		this.eventManager.registerEventConsumer(CCEventType.ERRORED_AUTH_CODE, payload -> {
 			log.warn("Failed to redeem auth code for reason {}, generating new one", payload.message());
 			this.eventManager.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.ERROR, "Failed to redeem auth code"));
-			send(new SocketRequest(GenerateAuthCodeData.ACTION, new GenerateAuthCodeData(parent.getAppID())));
+			requestAuthCode(new GenerateAuthCodeData(parent.getAppID()));
 		});
+		this.eventManager.registerEventConsumer(CCEventType.DISCONNECTED, data -> {
+			// subscriptions belong to the connection that was lost
+			subscriptions.clear();
+			pendingSubscriptions.clear();
+			if (disconnectedAt == 0L) disconnectedAt = Math.max(1L, System.nanoTime());
+		}, 0, true);
 		this.eventManager.registerEventRunnable(CCEventType.AUTHENTICATED, this::subscribe);
-		this.eventManager.registerEventConsumer(CCEventType.SUBSCRIBED, payload -> {
-			sleep = 1;
-			if (timeout != null) {
-				timeout.cancel(false);
-				timeout = null;
-			}
-			assert this.userToken != null : "Subscribed before authenticating";
-			this.subscriptions.addAll(payload.getSuccess());
-		});
-		this.eventManager.registerEventConsumer(CCEventType.EFFECT_REQUEST, payload -> this.parent.executeEffect(payload, this));
+		this.eventManager.registerEventConsumer(CCEventType.SUBSCRIBED, this::onSubscribed, EventManager.CATCH_UP_DEFAULT, true);
+		this.eventManager.registerEventConsumer(CCEventType.EFFECT_REQUEST, payload -> this.parent.executeEffect(payload, this), EventManager.CATCH_UP_DEFAULT, true);
 		this.eventManager.registerEventConsumer(CCEventType.EFFECT_FAILURE, payload -> parent.cancelByRequestId(payload.getRequestId()));
 
 		loadToken();
 	}
 
-	private void emitDisconnect(CloseData data) {
-		long now = System.currentTimeMillis();
-		if ((now - disconnectTriggeredAt) <= 900L) return;
-		disconnectTriggeredAt = now;
-		this.eventManager.dispatch(CCEventType.DISCONNECTED, data);
-	}
-
+	/**
+	 * Assigns this player a socket from the {@link CrowdControl#getSocketPool() socket pool}.
+	 */
 	public void connect() {
-		log.info("Connecting WebSocket");
-
-		timeout = parent.getTimedEffectPool().schedule(() -> {
-			this.eventManager.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.WARN, "Failed to initiate socket connection"));
-			close();
-		}, 60, TimeUnit.SECONDS);
-
-		HttpUtil.HTTP_CLIENT.newWebSocketBuilder()
-			.buildAsync(URI.create("wss://pubsub.crowdcontrol.live/"), this)
-			.thenAccept(ws -> this.ws = ws);
+		if (socket != null) return;
+		socket = parent.getSocketPool().acquire(this);
 	}
 
+	/**
+	 * Releases this player's socket.
+	 *
+	 * @return future to complete when the socket has been released
+	 */
 	public CompletableFuture<?> close() {
-		if (!canSend()) return CompletableFuture.completedFuture(null);
-		assert ws != null;
-		return ws.sendClose(WebSocket.NORMAL_CLOSURE, "")
-			.whenComplete(($1, $2) -> emitDisconnect(new CloseData(WebSocket.NORMAL_CLOSURE, null, false)));
-	}
-
-	public void clearKeepAlive() {
-		if (keepAlive == null) return;
-		keepAlive.cancel(false);
-		keepAlive = null;
-	}
-
-	public void resetKeepAlive() {
-		if (!canSend()) return;
-		assert ws != null;
-		clearKeepAlive();
-		keepAlive = parent.getTimedEffectPool().schedule(() -> {
-			log.info("KeepAlive failed, reconnecting");
-			clearKeepAlive();
-			close();
-		}, 15, TimeUnit.SECONDS);
-		ws.sendPing(ByteBuffer.allocate(0));
-	}
-
-	@Override
-	public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
-		resetKeepAlive();
-		return null;
-	}
-
-	@Override
-	public void onOpen(WebSocket ws) {
-//		log.info("Emitting connected event");
-		eventManager.dispatch(CCEventType.CONNECTED);
-		ws.request(Long.MAX_VALUE);
-	}
-
-	@Override
-	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-		pendingText.append(data);
-		if (!last) return null;
-		try {
-			String message = pendingText.toString();
-			pendingText = new StringBuilder();
-//			log.info("Received message {}", message);
-			SocketEvent event = JACKSON.readValue(message, SocketEvent.class);
-			switch (event.type) {
-				case "application-auth-code":
-					eventManager.dispatch(CCEventType.GENERATED_AUTH_CODE, JACKSON.treeToValue(event.payload, ApplicationAuthCodePayload.class));
-					break;
-				case "application-auth-code-error":
-					eventManager.dispatch(CCEventType.ERRORED_AUTH_CODE, JACKSON.treeToValue(event.payload, ApplicationAuthCodeErrorPayload.class));
-					break;
-				case "application-auth-code-redeemed":
-					eventManager.dispatch(CCEventType.REDEEMED_AUTH_CODE, JACKSON.treeToValue(event.payload, ApplicationAuthCodeRedeemedPayload.class));
-					break;
-				case "subscription-result":
-					SubscriptionResultPayload subscriptionPayload = JACKSON.treeToValue(event.payload, SubscriptionResultPayload.class);
-					if (subscriptionPayload == null) break;
-					//noinspection ConstantValue
-					subscriptionPayload = new SubscriptionResultPayload(
-						subscriptionPayload.getSuccess().stream().filter(Objects::nonNull).collect(Collectors.toSet()),
-						subscriptionPayload.getFailure().stream().filter(Objects::nonNull).collect(Collectors.toSet())
-					);
-					eventManager.dispatch(CCEventType.SUBSCRIBED, subscriptionPayload);
-					break;
-				case "effect-request":
-					if (!event.domain.equals("pub")) return null;
-					PublicEffectPayload requestPayload = JACKSON.treeToValue(event.payload, PublicEffectPayload.class);
-					if (!"game".equals(requestPayload.getEffect().getType())) return null;
-					eventManager.dispatch(CCEventType.EFFECT_REQUEST, requestPayload);
-					break;
-				case "effect-failure":
-					if (!event.domain.equals("pub")) return null;
-					PublicEffectPayload failurePayload = JACKSON.treeToValue(event.payload, PublicEffectPayload.class);
-					if (!"game".equals(failurePayload.getEffect().getType())) return null;
-					eventManager.dispatch(CCEventType.EFFECT_FAILURE, failurePayload);
-					break;
-				case "game-session-start":
-//					eventManager.dispatch(CCEventType.SESSION_STARTED, JACKSON.treeToValue(event.payload, GameSessionStartPayload.class));
-					break;
-				case "game-session-stop":
-//					eventManager.dispatch(CCEventType.SESSION_STOPPED, JACKSON.treeToValue(event.payload, GameSessionStopPayload.class));
-					break;
-				// TODO: handle effect menu sync
-				// TODO: handle errors
-				default:
-					log.debug("Ignoring unknown event {} on domain {}", event.type, event.domain);
-			}
-		} catch (Exception e) {
-			log.warn("Failed to handle incoming message {}", data, e);
-		}
-		return null;
+		flushResponses();
+		PubSubSocket socket = this.socket;
+		this.socket = null;
+		return parent.getSocketPool().release(this, socket);
+	}
+
+	/**
+	 * Moves this player's traffic to a replacement socket.
+	 *
+	 * @param from socket the player is expected to be using
+	 * @param to   replacement socket
+	 * @return whether the player was moved
+	 */
+	boolean moveSocket(@NotNull PubSubSocket from, @NotNull PubSubSocket to) {
+		if (this.socket != from) return false;
+		this.socket = to;
+		// the replacement was subscribed before switching over, so the subscriptions carry over
+		this.subscriptionGeneration = to.getGeneration();
+		return true;
 	}
 
-	@Override
-	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
-		emitDisconnect(new CloseData(statusCode, reason, true));
-		return null;
+	/**
+	 * Gets the socket which carries this player's traffic.
+	 *
+	 * @return socket or null
+	 */
+	public @Nullable PubSubSocket getSocket() {
+		return socket;
 	}
 
 	@Override
-	public void onError(WebSocket webSocket, Throwable error) {
-		log.error("An unknown WebSocket error has occurred", error);
-		this.eventManager.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.WARN, "An unknown socket error occurred"));
+	public @NotNull RoundTripStats getRoundTripStats() {
+		PubSubSocket socket = this.socket;
+		return socket == null ? RoundTripStats.EMPTY : socket.getRoundTripStats();
 	}
 
 	// Semi Boilerplate
 
 	public boolean canSend() {
-		return ws != null && !ws.isOutputClosed();
+		PubSubSocket socket = this.socket;
+		return socket != null && socket.canSend();
 	}
 
 	public boolean canSendRPC() {
@@ -318,36 +210,15 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 
 	@NotNull
 	private CompletableFuture<String> send(SocketRequest request) {
-		return CompletableFuture.supplyAsync(() -> {
-			String message;
-			try {
-				message = JACKSON.writeValueAsString(request);
-			} catch (JsonProcessingException e) {
-				throw new IllegalArgumentException("Could not encode message", e);
-			}
-
-			lock.lock();
-			try {
-				if (!canSend()) {
-					throw new IllegalStateException("Attempted to send message before connecting " + message.substring(0, 20));
-				}
+		PubSubSocket socket = this.socket;
+		if (socket == null) return CompletableFuture.failedFuture(new IllegalStateException("Attempted to send message before connecting"));
+		return socket.send(request);
+	}
 
-				assert ws != null;
-
-				return ws
-					.sendText(message, true)
-					.handleAsync(($, e) -> {
-						if (e != null) throw new IllegalStateException("WebSocket failed to send message " + message.substring(0, 20), e);
-						return message;
-					})
-					.join(); // this ensures the lock works as expected!
-			} finally {
-				lock.unlock();
-			}
-		}).whenComplete((message, e) -> {
-			if (e != null) log.warn("Failed to send message", e);
-//			else log.info("Sent message {}", message);
-		});
+	private void requestAuthCode(@NotNull GenerateAuthCodeData data) {
+		PubSubSocket socket = this.socket;
+		if (socket == null) return;
+		socket.requestAuthCode(this, new SocketRequest(GenerateAuthCodeData.ACTION, data));
 	}
 
 	public CompletableFuture<Boolean> sendRPC(CallData<?> call) {
@@ -368,11 +239,57 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 		//noinspection ConstantValue
 		if (response == null) return CompletableFuture.completedFuture(false);
 		if (response.getStatus() == ResponseStatus.DELAY_ESTIMATED) return CompletableFuture.completedFuture(false); // unused
+		CompletableFuture<Boolean> result = queueResponse(response);
+		// dispatched only once the response is queued, so that responses sent by inline listeners
+		// (such as the SUCCESS which follows TIMED_BEGIN) are written after it
 		eventManager.dispatch(CCEventType.EFFECT_RESPONSE, response);
-		return sendRPC(new CallData<>(
+		return result;
+	}
+
+	private @NotNull CompletableFuture<Boolean> queueResponse(@NotNull CCEffectResponse response) {
+		int window = parent.getResponseBatchWindow();
+		if (window <= 0) {
+			return sendRPC(new CallData<>(
+				CallDataMethod.EFFECT_RESPONSE,
+				Collections.singletonList(response)
+			));
+		}
+
+		CompletableFuture<Boolean> future = new CompletableFuture<>();
+		boolean flush;
+		synchronized (pendingResponses) {
+			pendingResponses.add(new PendingResponse(response, future));
+			flush = pendingResponses.size() >= parent.getResponseBatchSize();
+			if (!flush && responseFlush == null)
+				responseFlush = parent.getTimer().schedule(this::flushResponses, window, TimeUnit.MILLISECONDS);
+		}
+		if (flush) flushResponses();
+		return future;
+	}
+
+	/**
+	 * Sends all responses which are waiting on the {@link CrowdControl#getResponseBatchWindow() batching window}
+	 * as a single call.
+	 */
+	public void flushResponses() {
+		List<PendingResponse> batch;
+		synchronized (pendingResponses) {
+			if (responseFlush != null) {
+				responseFlush.cancel(false);
+				responseFlush = null;
+			}
+			if (pendingResponses.isEmpty()) return;
+			batch = new ArrayList<>(pendingResponses);
+			pendingResponses.clear();
+		}
+
+		sendRPC(new CallData<>(
 			CallDataMethod.EFFECT_RESPONSE,
-			Collections.singletonList(response)
-		));
+			batch.stream().map(PendingResponse::response).collect(Collectors.toList())
+		)).whenComplete((success, e) -> {
+			for (PendingResponse pending : batch)
+				pending.future().complete(e == null && success);
+		});
 	}
 
 	@Override
@@ -383,12 +300,12 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 			else return pendingAuthCode;
 		}
 		pendingAuthCode = new CompletableFuture<Void>().orTimeout(10, TimeUnit.SECONDS).handle((unused, throwable) -> null);
-		send(new SocketRequest(GenerateAuthCodeData.ACTION, new GenerateAuthCodeData(
+		requestAuthCode(new GenerateAuthCodeData(
 			parent.getAppID(),
 			List.of("profile:read", "session:write", "session:control", "custom-effects:write"),
 			List.of(parent.getGamePackID()),
 			false
-		)));
+		));
 		return pendingAuthCode;
 	}
 
@@ -582,26 +499,80 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 	}
 
 	protected void subscribe() {
-		if (!canSendRPC())
+		PubSubSocket socket = this.socket;
+		if (socket == null || !canSendRPC())
 			return;
 
 		assert this.userToken != null;
 
+		// subscriptions made on an earlier connection do not carry over to this one
+		int generation = socket.getGeneration();
+		if (generation != subscriptionGeneration) {
+			subscriptions.clear();
+			pendingSubscriptions.clear();
+			subscriptionGeneration = generation;
+		}
+
 		Set<String> subscribeTo = new HashSet<>(Set.of(
 			"pub/" + this.userToken.getId()
 		));
 
 		subscribeTo.removeAll(subscriptions);
+		subscribeTo.removeAll(pendingSubscriptions);
 
 		if (subscribeTo.isEmpty()) return;
 
+		// every missing topic is requested in a single frame
+		pendingSubscriptions.addAll(subscribeTo);
 		send(new SocketRequest(
 			"subscribe",
 			new SubscriptionData(
 				subscribeTo,
 				this.token
 			)
-		));
+		)).whenComplete(($, e) -> {
+			if (e != null) pendingSubscriptions.removeAll(subscribeTo);
+		});
+	}
+
+	private void onSubscribed(@NotNull SubscriptionResultPayload payload) {
+		assert this.userToken != null : "Subscribed before authenticating";
+		subscriptions.addAll(payload.getSuccess());
+		pendingSubscriptions.removeAll(payload.getSuccess());
+		pendingSubscriptions.removeAll(payload.getFailure());
+		if (!payload.getFailure().isEmpty()) {
+			log.warn("Failed to subscribe to {}", payload.getFailure());
+			eventManager.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.ERROR, "Failed to subscribe to effect requests"));
+			return;
+		}
+		if (!pendingSubscriptions.isEmpty()) return;
+
+		long since = disconnectedAt;
+		if (since == 0L) return;
+		disconnectedAt = 0L;
+		Duration downtime = Duration.ofNanos(System.nanoTime() - since);
+		// the game session lives on the server rather than the connection, so it and its menu state are kept as they were
+		boolean sessionResumed = gameSessionID != null;
+		log.info("Recovered connection for {} after {} ms", uuid, downtime.toMillis());
+		eventManager.dispatch(CCEventType.RECOVERED, new RecoveryData(downtime, subscriptions, sessionResumed));
+	}
+
+	/**
+	 * Subscribes to this player's topics over a socket other than their own,
+	 * regardless of whether they are already subscribed on their own socket.
+	 * Nothing is sent if the player is not authenticated.
+	 *
+	 * @param via     socket to subscribe on
+	 * @param pending collection to add the requested topics to before the request is sent
+	 */
+	void subscribeVia(@NotNull PubSubSocket via, @NotNull Collection<String> pending) {
+		String token = this.token;
+		UserToken userToken = this.userToken;
+		if (token == null || userToken == null) return;
+
+		Set<String> topics = Set.of("pub/" + userToken.getId());
+		pending.addAll(topics);
+		via.send(new SocketRequest("subscribe", new SubscriptionData(topics, token)));
 	}
 
 	@Override
@@ -620,6 +591,9 @@ public class ConnectedPlayer implements CCPlayer, WebSocket.Listener {
 		saveToken();
 	}
 
+	protected record PendingResponse(@NotNull CCEffectResponse response, @NotNull CompletableFuture<Boolean> future) {
+	}
+
 	// True Boilerplate
 
 	@NotNull
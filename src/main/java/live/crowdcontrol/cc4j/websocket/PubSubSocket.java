@@ -0,0 +1,755 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CCMessage;
+import live.crowdcontrol.cc4j.CrowdControl;
+import live.crowdcontrol.cc4j.util.CloseData;
+import live.crowdcontrol.cc4j.util.HttpUtil;
+import live.crowdcontrol.cc4j.websocket.payload.*;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static live.crowdcontrol.cc4j.websocket.ConnectedPlayer.JACKSON;
+
+/**
+ * A connection to the Crowd Control PubSub server.
+ * <p>
+ * A socket is either dedicated to a single player or shared by several players,
+ * in which case incoming events are routed to the player they concern.
+ */
+@ApiStatus.Internal
+public class PubSubSocket implements WebSocket.Listener {
+	public static final @NotNull URI PUBSUB_URI = URI.create("wss://pubsub.crowdcontrol.live/");
+	protected static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/PubSubSocket");
+	private static final @NotNull AtomicInteger GENERATIONS = new AtomicInteger();
+	protected final @NotNull Queue<OutboundMessage> outbound = new ConcurrentLinkedQueue<>();
+	protected final @NotNull AtomicBoolean writing = new AtomicBoolean();
+	protected final @NotNull Set<ConnectedPlayer> players = new CopyOnWriteArraySet<>();
+	/**
+	 * Players awaiting an auth code, in the order their requests were written to the socket.
+	 * Only the writer appends to this, so it always matches the order in which the server will reply.
+	 */
+	protected final @NotNull Deque<ConnectedPlayer> pendingAuthCodes = new ConcurrentLinkedDeque<>();
+	protected final @NotNull CrowdControl parent;
+	protected final boolean shared;
+	// reassembly state, only touched by the listener thread
+	protected char @NotNull [] pendingText = new char[1024];
+	protected int pendingLength = 0;
+	protected boolean pendingOverflow = false;
+	/**
+	 * Set when the connection drops, telling the listener thread to discard any partly received message.
+	 */
+	protected volatile boolean discardPending = false;
+	protected volatile @Nullable WebSocket ws;
+	protected volatile int generation = 0;
+	/**
+	 * Number of dispatched inbound events which players' listeners have not finished handling.
+	 */
+	protected final @NotNull AtomicInteger backlog = new AtomicInteger();
+	protected volatile boolean flowControlled = false;
+	protected volatile boolean paused = false;
+	protected long demand = 0L; // guarded by this
+	protected volatile @NotNull CompletableFuture<WebSocket> ready = new CompletableFuture<>();
+	protected int attempts = 0;
+	protected long disconnectTriggeredAt = 0L;
+	protected volatile boolean closed = false;
+	protected volatile boolean awaitingPong = false;
+	protected volatile long pingSentAt = 0L;
+	protected volatile @NotNull RoundTripStats roundTripStats = RoundTripStats.EMPTY;
+	protected ScheduledFuture<?> timeout = null;
+	protected ScheduledFuture<?> reconnect = null;
+	protected volatile @Nullable SocketMigration migration = null;
+	protected volatile @NotNull CompletableFuture<?> lastSent = CompletableFuture.completedFuture(null);
+
+	/**
+	 * Creates a socket.
+	 *
+	 * @param parent Crowd Control instance
+	 * @param shared whether this socket may be used by more than one player
+	 */
+	public PubSubSocket(@NotNull CrowdControl parent, boolean shared) {
+		this.parent = parent;
+		this.shared = shared;
+	}
+
+	// Players
+
+	/**
+	 * Whether this socket may be used by more than one player.
+	 *
+	 * @return is shared
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Whether this socket has been permanently closed.
+	 *
+	 * @return is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Gets the players whose traffic is carried by this socket.
+	 *
+	 * @return unmodifiable view of players
+	 */
+	public @NotNull Set<ConnectedPlayer> getPlayers() {
+		return Collections.unmodifiableSet(players);
+	}
+
+	/**
+	 * Routes a player's traffic through this socket.
+	 * If the socket is already open, the player is immediately notified of the connection.
+	 *
+	 * @param player player to attach
+	 */
+	public void attach(@NotNull ConnectedPlayer player) {
+		if (!players.add(player)) return;
+		if (canSend() && !isStandby()) player.getEventManager().dispatch(CCEventType.CONNECTED);
+	}
+
+	/**
+	 * Whether this socket is a replacement which has not yet taken over its players' traffic.
+	 *
+	 * @return is standby
+	 */
+	boolean isStandby() {
+		SocketMigration migration = this.migration;
+		return migration != null && migration.getReplacement() == this && !migration.isFinished();
+	}
+
+	/**
+	 * Stops routing a player's traffic through this socket.
+	 *
+	 * @param player player to detach
+	 * @return whether the player was attached
+	 */
+	public boolean detach(@NotNull ConnectedPlayer player) {
+		pendingAuthCodes.remove(player);
+		return players.remove(player);
+	}
+
+	private void dispatch(@NotNull Collection<ConnectedPlayer> targets, @NotNull CCEventType<Void> event) {
+		for (ConnectedPlayer player : targets)
+			player.getEventManager().dispatch(event);
+	}
+
+	private <T> void dispatch(@NotNull Collection<ConnectedPlayer> targets, @NotNull CCEventType<T> event, @NotNull T body) {
+		for (ConnectedPlayer player : targets)
+			player.getEventManager().dispatch(event, body);
+	}
+
+	/**
+	 * Dispatches an event received from the server, counting it towards the inbound backlog until it is handled.
+	 */
+	private <T> void dispatchInbound(@NotNull Collection<ConnectedPlayer> targets, @NotNull CCEventType<T> event, @NotNull T body) {
+		if (!flowControlled) {
+			dispatch(targets, event, body);
+			return;
+		}
+		for (ConnectedPlayer player : targets) {
+			backlog.incrementAndGet();
+			player.getEventManager().dispatch(event, body, this::onInboundHandled);
+		}
+	}
+
+	private @NotNull Collection<ConnectedPlayer> route(@NotNull Predicate<ConnectedPlayer> filter) {
+		if (!shared) return players;
+		return players.stream().filter(filter).collect(Collectors.toList());
+	}
+
+	private @NotNull Collection<ConnectedPlayer> routeByUser(@NotNull String ccUID) {
+		return route(player -> player.getUserToken() != null && player.getUserToken().getId().equalsIgnoreCase(ccUID));
+	}
+
+	private @NotNull Collection<ConnectedPlayer> routeByTopics(@NotNull SubscriptionResultPayload payload) {
+		return route(player -> {
+			if (player.getUserToken() == null) return false;
+			String topic = "pub/" + player.getUserToken().getId();
+			return payload.getSuccess().contains(topic) || payload.getFailure().contains(topic);
+		});
+	}
+
+	private @NotNull Collection<ConnectedPlayer> routeAuthCode() {
+		ConnectedPlayer player = pendingAuthCodes.poll();
+		if (!shared) return players;
+		if (player == null) return Collections.emptyList();
+		return Collections.singletonList(player);
+	}
+
+	private @NotNull Collection<ConnectedPlayer> routeAuthCodeError() {
+		// errors carry nothing identifying the request they belong to,
+		// so rather than guess, every outstanding request is failed and its player asks again
+		Set<ConnectedPlayer> targets = new LinkedHashSet<>();
+		ConnectedPlayer player;
+		while ((player = pendingAuthCodes.poll()) != null)
+			targets.add(player);
+		if (!shared) return players;
+		if (!targets.isEmpty()) return targets;
+		// with no request outstanding, the error concerns a code which has already been issued
+		return route(target -> target.getAuthCode() != null);
+	}
+
+	// Connection
+
+	private void emitDisconnect(CloseData data) {
+		long now = System.currentTimeMillis();
+		if ((now - disconnectTriggeredAt) <= 900L) return;
+		disconnectTriggeredAt = now;
+		onDisconnect(data);
+	}
+
+	private void onDisconnect(CloseData data) {
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+		this.ws = null;
+		awaitingPong = false;
+		ready.completeExceptionally(new IllegalStateException("Socket disconnected before opening"));
+		pendingAuthCodes.clear();
+		discardPending = true;
+		synchronized (this) {
+			demand = 0L;
+			paused = false;
+		}
+		SocketMigration migration = this.migration;
+		if (migration != null && !migration.isFinished()) {
+			// a replacement which drops abandons the migration, while a dropped source is simply replaced
+			if (migration.getReplacement() == this) migration.abort("replacement disconnected");
+			return;
+		}
+		dispatch(players, CCEventType.DISCONNECTED, data);
+		// check that the socket is still wanted
+		if (closed || players.isEmpty()) return;
+		scheduleReconnect();
+	}
+
+	/**
+	 * Schedules a reconnection attempt.
+	 * The delay is drawn uniformly between zero and an exponentially growing ceiling ("full jitter")
+	 * so that sockets which disconnected together do not reconnect together.
+	 */
+	private void scheduleReconnect() {
+		long ceiling = Math.min(parent.getMaxReconnectDelay() * 1000L, 1000L << Math.min(attempts, 20));
+		attempts++;
+		long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+		dispatch(players, CCEventType.MESSAGE, new CCMessage(CCMessage.Level.WARN, "Reconnecting to socket in " + Math.ceilDiv(delay, 1000L) + " second(s)"));
+		reconnect = parent.getTimer().schedule(() -> {
+			reconnect = null;
+			if (closed || players.isEmpty()) return;
+			connect(); // reconnect!
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Resets the reconnection backoff after the socket has proven to be healthy.
+	 */
+	protected void markHealthy() {
+		attempts = 0;
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+	}
+
+	/**
+	 * Opens the connection once the {@link CrowdControl#getConnectLimiter() connection rate limit} allows it.
+	 */
+	public void connect() {
+		long wait = parent.getConnectLimiter().reserve();
+		if (wait <= 0) {
+			open();
+			return;
+		}
+		reconnect = parent.getTimer().schedule(() -> {
+			reconnect = null;
+			if (closed) return;
+			open();
+		}, wait, TimeUnit.NANOSECONDS);
+	}
+
+	private void open() {
+		log.info("Connecting WebSocket");
+		if (ready.isDone()) ready = new CompletableFuture<>();
+
+		timeout = parent.getTimer().schedule(() -> {
+			dispatch(players, CCEventType.MESSAGE, new CCMessage(CCMessage.Level.WARN, "Failed to initiate socket connection"));
+			close();
+		}, 60, TimeUnit.SECONDS);
+
+		HttpUtil.HTTP_CLIENT.newWebSocketBuilder()
+			.buildAsync(PUBSUB_URI, this)
+			.whenComplete((ws, e) -> {
+				if (e != null) {
+					log.warn("Failed to connect WebSocket", e);
+					ready.completeExceptionally(e);
+					if (timeout != null) {
+						timeout.cancel(false);
+						timeout = null;
+					}
+					if (!closed && !players.isEmpty()) scheduleReconnect();
+					return;
+				}
+				// the socket itself is captured by onOpen
+				if (closed) close();
+			});
+	}
+
+	/**
+	 * Closes the current connection.
+	 * The socket will reconnect if it still has players attached.
+	 *
+	 * @return future to complete when the close frame is sent
+	 */
+	public CompletableFuture<?> close() {
+		if (!canSend()) return CompletableFuture.completedFuture(null);
+		assert ws != null;
+		return ws.sendClose(WebSocket.NORMAL_CLOSURE, "")
+			.whenComplete(($1, $2) -> emitDisconnect(new CloseData(WebSocket.NORMAL_CLOSURE, null, false)));
+	}
+
+	/**
+	 * Permanently closes this socket once the messages already queued on it have been written.
+	 * Used to retire a socket whose players have left or been moved to a replacement.
+	 *
+	 * @return future to complete when the close frame is sent
+	 */
+	CompletableFuture<?> retire() {
+		closed = true;
+		if (reconnect != null) {
+			reconnect.cancel(false);
+			reconnect = null;
+		}
+		return whenFlushed()
+			.orTimeout(10, TimeUnit.SECONDS)
+			.handle(($1, $2) -> null)
+			.thenCompose($ -> shutdown());
+	}
+
+	private @NotNull CompletableFuture<?> whenFlushed() {
+		CompletableFuture<?> last = lastSent;
+		return last.handle(($1, $2) -> null).thenCompose($ -> {
+			if (last == lastSent && outbound.isEmpty()) return CompletableFuture.completedFuture(null);
+			return whenFlushed();
+		});
+	}
+
+	/**
+	 * Permanently closes this socket.
+	 *
+	 * @return future to complete when the close frame is sent
+	 */
+	public CompletableFuture<?> shutdown() {
+		closed = true;
+		if (reconnect != null) {
+			reconnect.cancel(false);
+			reconnect = null;
+		}
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+		return close().whenComplete(($1, $2) -> players.clear());
+	}
+
+	/**
+	 * Checks this socket's liveness, called periodically by the {@link SocketPool}.
+	 * If the previous ping has not been answered, the connection is closed so that it reconnects;
+	 * otherwise, a new ping is sent.
+	 */
+	void sweepKeepAlive() {
+		WebSocket ws = this.ws;
+		if (ws == null || ws.isOutputClosed()) return;
+		if (paused) {
+			// no demand is outstanding while reads are paused, so even a healthy connection cannot deliver its pong;
+			// liveness is judged afresh once the consumer catches up and reading resumes
+			awaitingPong = false;
+			return;
+		}
+		if (awaitingPong) {
+			awaitingPong = false;
+			SocketPool pool = parent.getSocketPool();
+			if (pool.isMakeBeforeBreak() && migration == null && !closed) {
+				log.info("KeepAlive failed, migrating to a new connection");
+				pool.migrate(this);
+				return;
+			}
+			log.info("KeepAlive failed, reconnecting");
+			close();
+			return;
+		}
+		pingSentAt = System.nanoTime();
+		awaitingPong = true;
+		ws.sendPing(ByteBuffer.allocate(0));
+	}
+
+	/**
+	 * Gets the round-trip latency of this socket's connection.
+	 *
+	 * @return round-trip stats
+	 */
+	public @NotNull RoundTripStats getRoundTripStats() {
+		return roundTripStats;
+	}
+
+	// WebSocket Impl
+
+	@Override
+	public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+		consumeDemand();
+		replenish();
+		if (!awaitingPong) return null;
+		long rtt = System.nanoTime() - pingSentAt;
+		awaitingPong = false;
+		roundTripStats = roundTripStats.with(Duration.ofNanos(rtt), Instant.now());
+		return null;
+	}
+
+	@Override
+	public void onOpen(WebSocket ws) {
+		// onOpen may be called before buildAsync completes, so the socket is captured here
+		this.ws = ws;
+		this.generation = GENERATIONS.incrementAndGet();
+		ready.complete(ws);
+//		log.info("Emitting connected event");
+		if (!isStandby()) dispatch(players, CCEventType.CONNECTED);
+		flowControlled = parent.getSocketPool().getInboundHighWatermark() > 0;
+		if (flowControlled) replenish();
+		else ws.request(Long.MAX_VALUE);
+	}
+
+	// Flow Control
+
+	private void onInboundHandled() {
+		int remaining = backlog.decrementAndGet();
+		if (paused && remaining <= parent.getSocketPool().getInboundLowWatermark()) replenish();
+	}
+
+	/**
+	 * Records that the server has delivered a frame, using up one unit of demand.
+	 */
+	private void consumeDemand() {
+		if (!flowControlled) return;
+		synchronized (this) {
+			if (demand > 0) demand--;
+		}
+	}
+
+	/**
+	 * Requests as many frames from the server as the inbound backlog allows.
+	 * Reading pauses once the backlog reaches the high watermark, and resumes once it drains to the low watermark.
+	 */
+	private void replenish() {
+		if (!flowControlled) return;
+		WebSocket ws = this.ws;
+		if (ws == null) return;
+		SocketPool pool = parent.getSocketPool();
+		int high = pool.getInboundHighWatermark();
+		if (high <= 0) {
+			// flow control was disabled since connecting
+			flowControlled = false;
+			ws.request(Long.MAX_VALUE);
+			return;
+		}
+
+		long request;
+		synchronized (this) {
+			int outstanding = backlog.get();
+			if (paused) {
+				if (outstanding > pool.getInboundLowWatermark()) return;
+				paused = false;
+				log.debug("Resuming reads with {} inbound event(s) outstanding", outstanding);
+			} else if (outstanding >= high) {
+				paused = true;
+				// re-check in case the backlog drained before the pause was visible to onInboundHandled
+				outstanding = backlog.get();
+				if (outstanding > pool.getInboundLowWatermark()) {
+					log.debug("Pausing reads with {} inbound event(s) outstanding", outstanding);
+					return;
+				}
+				paused = false;
+			}
+			request = high - outstanding - demand;
+			if (request <= 0) return;
+			demand += request;
+		}
+		ws.request(request);
+	}
+
+	@Override
+	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+		consumeDemand();
+		try {
+			return handleText(data, last);
+		} finally {
+			replenish();
+		}
+	}
+
+	private @Nullable CompletionStage<?> handleText(@NotNull CharSequence data, boolean last) {
+		appendPending(data);
+		if (!last) return null;
+		int length = pendingLength;
+		boolean overflow = pendingOverflow;
+		pendingLength = 0;
+		pendingOverflow = false;
+		if (overflow) {
+			log.warn("Discarding incoming message of at least {} characters which exceeds the maximum of {}", length, parent.getSocketPool().getMaxMessageSize());
+			return null;
+		}
+		try {
+//			log.info("Received message {}", new String(pendingText, 0, length));
+			SocketEvent event;
+			try (JsonParser parser = JACKSON.createParser(pendingText, 0, length)) {
+				event = SocketEvent.read(JACKSON, parser);
+			}
+			switch (event.type) {
+				case "application-auth-code":
+					markHealthy();
+					dispatchInbound(routeAuthCode(), CCEventType.GENERATED_AUTH_CODE, event.getPayload(ApplicationAuthCodePayload.class));
+					break;
+				case "application-auth-code-error":
+					dispatchInbound(routeAuthCodeError(), CCEventType.ERRORED_AUTH_CODE, event.getPayload(ApplicationAuthCodeErrorPayload.class));
+					break;
+				case "application-auth-code-redeemed":
+					ApplicationAuthCodeRedeemedPayload redeemedPayload = event.getPayload(ApplicationAuthCodeRedeemedPayload.class);
+					dispatchInbound(route(player -> redeemedPayload.code().equals(player.getAuthCode())), CCEventType.REDEEMED_AUTH_CODE, redeemedPayload);
+					break;
+				case "subscription-result":
+					SubscriptionResultPayload subscriptionPayload = event.getPayload(SubscriptionResultPayload.class);
+					if (subscriptionPayload == null) break;
+					markHealthy();
+					//noinspection ConstantValue
+					subscriptionPayload = new SubscriptionResultPayload(
+						subscriptionPayload.getSuccess().stream().filter(Objects::nonNull).collect(Collectors.toSet()),
+						subscriptionPayload.getFailure().stream().filter(Objects::nonNull).collect(Collectors.toSet())
+					);
+					dispatchInbound(routeByTopics(subscriptionPayload), CCEventType.SUBSCRIBED, subscriptionPayload);
+					SocketMigration migration = this.migration;
+					if (migration != null && migration.getReplacement() == this) migration.onSubscribed(subscriptionPayload);
+					break;
+				case "effect-request":
+					if (!event.domain.equals("pub")) return null;
+					PublicEffectPayload requestPayload = event.getPayload(PublicEffectPayload.class);
+					if (requestPayload == null || !"game".equals(requestPayload.getEffect().getType())) return null;
+					// while migrating, both sockets receive each request
+					SocketMigration requestMigration = this.migration;
+					if (requestMigration != null && !requestMigration.firstSighting(requestPayload.getRequestId())) return null;
+					dispatchInbound(routeByUser(requestPayload.getTarget().getId()), CCEventType.EFFECT_REQUEST, requestPayload);
+					break;
+				case "effect-failure":
+					if (!event.domain.equals("pub")) return null;
+					PublicEffectPayload failurePayload = event.getPayload(PublicEffectPayload.class);
+					if (failurePayload == null || !"game".equals(failurePayload.getEffect().getType())) return null;
+					dispatchInbound(routeByUser(failurePayload.getTarget().getId()), CCEventType.EFFECT_FAILURE, failurePayload);
+					break;
+				case "game-session-start":
+//					dispatch(players, CCEventType.SESSION_STARTED, JACKSON.treeToValue(event.payload, GameSessionStartPayload.class));
+					break;
+				case "game-session-stop":
+//					dispatch(players, CCEventType.SESSION_STOPPED, JACKSON.treeToValue(event.payload, GameSessionStopPayload.class));
+					break;
+				// TODO: handle effect menu sync
+				// TODO: handle errors
+				default:
+					log.debug("Ignoring unknown event {} on domain {}", event.type, event.domain);
+			}
+		} catch (Exception e) {
+			log.warn("Failed to handle incoming message {}", data, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Appends a message fragment to the reassembly buffer, which is reused across messages.
+	 * Once the message grows past the {@link SocketPool#getMaxMessageSize() maximum size},
+	 * the rest of it is counted but not stored.
+	 * A message left incomplete by a dropped connection is discarded here rather than by the disconnecting thread.
+	 *
+	 * @param data message fragment
+	 */
+	private void appendPending(@NotNull CharSequence data) {
+		if (discardPending) {
+			discardPending = false;
+			pendingLength = 0;
+			pendingOverflow = false;
+		}
+		int length = data.length();
+		int required = pendingLength + length;
+		if (pendingOverflow || required > parent.getSocketPool().getMaxMessageSize()) {
+			pendingOverflow = true;
+			pendingLength = required;
+			return;
+		}
+		if (required > pendingText.length)
+			pendingText = Arrays.copyOf(pendingText, Math.min(Math.max(required, pendingText.length * 2), parent.getSocketPool().getMaxMessageSize()));
+		if (data instanceof String string) {
+			string.getChars(0, length, pendingText, pendingLength);
+		} else if (data instanceof CharBuffer buffer) {
+			buffer.duplicate().get(pendingText, pendingLength, length);
+		} else {
+			for (int i = 0; i < length; i++)
+				pendingText[pendingLength + i] = data.charAt(i);
+		}
+		pendingLength = required;
+	}
+
+	@Override
+	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+		emitDisconnect(new CloseData(statusCode, reason, true));
+		return null;
+	}
+
+	@Override
+	public void onError(WebSocket webSocket, Throwable error) {
+		log.error("An unknown WebSocket error has occurred", error);
+		dispatch(players, CCEventType.MESSAGE, new CCMessage(CCMessage.Level.WARN, "An unknown socket error occurred"));
+	}
+
+	// Sending
+
+	public boolean canSend() {
+		WebSocket ws = this.ws;
+		return ws != null && !ws.isOutputClosed();
+	}
+
+	/**
+	 * Gets the generation of the current connection.
+	 * Every connection made by any socket is assigned a distinct generation when it opens,
+	 * so state such as subscriptions can be tied to the connection it was established on.
+	 *
+	 * @return generation, or 0 if no connection has opened yet
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Gets a future which completes once the current connection has opened,
+	 * or completes exceptionally if it fails to open.
+	 *
+	 * @return readiness future
+	 */
+	public @NotNull CompletableFuture<Void> whenReady() {
+		return ready.thenApply($ -> null);
+	}
+
+	/**
+	 * Requests an auth code on behalf of a player.
+	 * The resulting code is routed back to the player who requested it.
+	 *
+	 * @param player  player requesting the code
+	 * @param request generate-auth-code request
+	 * @return future to complete when the request is sent
+	 */
+	@NotNull
+	CompletableFuture<String> requestAuthCode(@NotNull ConnectedPlayer player, @NotNull SocketRequest request) {
+		return send(request, player);
+	}
+
+	/**
+	 * Queues a request to be written to the socket.
+	 * Requests are written one at a time in the order they were queued.
+	 *
+	 * @param request request to send
+	 * @return future to complete with the encoded message once it has been written
+	 */
+	@NotNull
+	CompletableFuture<String> send(@NotNull SocketRequest request) {
+		return send(request, null);
+	}
+
+	@NotNull
+	private CompletableFuture<String> send(@NotNull SocketRequest request, @Nullable ConnectedPlayer authCodeFor) {
+		CompletableFuture<String> future = new CompletableFuture<>();
+		try {
+			outbound.add(new OutboundMessage(JACKSON.writeValueAsString(request), future, authCodeFor));
+			lastSent = future;
+			drain();
+		} catch (JsonProcessingException e) {
+			future.completeExceptionally(new IllegalArgumentException("Could not encode message", e));
+		}
+		return future.whenComplete((message, e) -> {
+			if (e != null) log.warn("Failed to send message", e);
+//			else log.info("Sent message {}", message);
+		});
+	}
+
+	/**
+	 * Writes queued messages until the queue is empty or a write is still in flight,
+	 * in which case writing resumes once that write completes.
+	 */
+	private void drain() {
+		while (writing.compareAndSet(false, true)) {
+			OutboundMessage next = outbound.poll();
+			if (next == null) {
+				writing.set(false);
+				// a message may have been queued after polling but before releasing the writer
+				if (outbound.isEmpty()) return;
+				continue;
+			}
+
+			WebSocket ws = this.ws;
+			if (ws == null || ws.isOutputClosed()) {
+				next.future().completeExceptionally(new IllegalStateException("Attempted to send message before connecting " + abbreviate(next.message())));
+				writing.set(false);
+				continue;
+			}
+
+			ConnectedPlayer authCodeFor = next.authCodeFor();
+			if (authCodeFor != null) pendingAuthCodes.add(authCodeFor);
+			CompletableFuture<WebSocket> write = ws.sendText(next.message(), true);
+			if (!write.isDone()) {
+				write.whenComplete(($, e) -> {
+					next.complete(e);
+					// the failed frame is the newest one written, so this cannot shift anybody else's place
+					if (e != null && authCodeFor != null) pendingAuthCodes.removeLastOccurrence(authCodeFor);
+					writing.set(false);
+					drain();
+				});
+				return;
+			}
+
+			// completed synchronously; keep writing on this thread instead of recursing
+			write.whenComplete(($, e) -> {
+				next.complete(e);
+				if (e != null && authCodeFor != null) pendingAuthCodes.removeLastOccurrence(authCodeFor);
+			});
+			writing.set(false);
+		}
+	}
+
+	private static @NotNull String abbreviate(@NotNull String message) {
+		return message.substring(0, Math.min(20, message.length()));
+	}
+
+	protected record OutboundMessage(@NotNull String message, @NotNull CompletableFuture<String> future, @Nullable ConnectedPlayer authCodeFor) {
+		void complete(@Nullable Throwable e) {
+			if (e != null) future.completeExceptionally(new IllegalStateException("WebSocket failed to send message " + abbreviate(message), e));
+			else future.complete(message);
+		}
+	}
+}
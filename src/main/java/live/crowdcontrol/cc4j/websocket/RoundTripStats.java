@@ -0,0 +1,52 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Round-trip latency of a connection, as measured by keepalive pings.
+ *
+ * @param samples    number of pongs received
+ * @param last       round-trip time of the most recent ping, or null if no pong has been received
+ * @param average    smoothed round-trip time, or null if no pong has been received
+ * @param min        lowest observed round-trip time, or null if no pong has been received
+ * @param max        highest observed round-trip time, or null if no pong has been received
+ * @param lastPongAt time at which the most recent pong was received, or null if none has been received
+ */
+public record RoundTripStats(
+	long samples,
+	@Nullable Duration last,
+	@Nullable Duration average,
+	@Nullable Duration min,
+	@Nullable Duration max,
+	@Nullable Instant lastPongAt
+) {
+	/**
+	 * Stats of a connection which has not yet received a pong.
+	 */
+	public static final @NotNull RoundTripStats EMPTY = new RoundTripStats(0, null, null, null, null, null);
+
+	/**
+	 * Creates a copy of these stats with a new sample added.
+	 * The average is an exponentially weighted moving average giving each new sample a weight of 1/8.
+	 *
+	 * @param sample     round-trip time of the sample
+	 * @param receivedAt time at which the pong was received
+	 * @return updated stats
+	 */
+	public @NotNull RoundTripStats with(@NotNull Duration sample, @NotNull Instant receivedAt) {
+		if (samples == 0 || average == null || min == null || max == null)
+			return new RoundTripStats(1, sample, sample, sample, sample, receivedAt);
+		return new RoundTripStats(
+			samples + 1,
+			sample,
+			average.plus(sample.minus(average).dividedBy(8)),
+			sample.compareTo(min) < 0 ? sample : min,
+			sample.compareTo(max) > 0 ? sample : max,
+			receivedAt
+		);
+	}
+}
@@ -1,11 +1,100 @@
 package live.crowdcontrol.cc4j.websocket;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import live.crowdcontrol.cc4j.websocket.payload.*;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
 
 @ApiStatus.Internal
 class SocketEvent {
+	/**
+	 * The classes that the payloads of handled event types are bound to.
+	 * Payloads of any other event type are skipped without being parsed.
+	 */
+	static final @NotNull Map<String, Class<?>> PAYLOAD_TYPES = Map.of(
+		"application-auth-code", ApplicationAuthCodePayload.class,
+		"application-auth-code-error", ApplicationAuthCodeErrorPayload.class,
+		"application-auth-code-redeemed", ApplicationAuthCodeRedeemedPayload.class,
+		"subscription-result", SubscriptionResultPayload.class,
+		"effect-request", PublicEffectPayload.class,
+		"effect-failure", PublicEffectPayload.class
+	);
+
 	public String domain;
 	public String type;
-	public JsonNode payload;
+	public @Nullable Object payload;
+
+	/**
+	 * Gets the payload of this event as the given type.
+	 *
+	 * @param clazz payload class
+	 * @return payload or null
+	 */
+	public <T> @Nullable T getPayload(@NotNull Class<T> clazz) {
+		return clazz.cast(payload);
+	}
+
+	/**
+	 * Reads an event from a parser, binding its payload directly to the class registered in {@link #PAYLOAD_TYPES}.
+	 * <p>
+	 * The payload is only buffered if it precedes the event type in the message.
+	 *
+	 * @param mapper mapper to bind the payload with
+	 * @param parser parser positioned before the event object
+	 * @return event
+	 * @throws IOException the message could not be read
+	 */
+	static @NotNull SocketEvent read(@NotNull ObjectMapper mapper, @NotNull JsonParser parser) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT)
+			throw new IOException("Expected event to be an object");
+
+		SocketEvent event = new SocketEvent();
+		TokenBuffer buffered = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			parser.nextToken();
+			switch (field) {
+				case "domain":
+					event.domain = parser.getValueAsString();
+					break;
+				case "type":
+					event.type = parser.getValueAsString();
+					break;
+				case "payload":
+					if (event.type == null) {
+						buffered = new TokenBuffer(parser);
+						buffered.copyCurrentStructure(parser);
+						break;
+					}
+					event.payload = readPayload(mapper, parser, event.type);
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+
+		if (buffered != null && event.type != null) {
+			try (JsonParser bufferedParser = buffered.asParser()) {
+				event.payload = readPayload(mapper, bufferedParser, event.type);
+			}
+		}
+
+		return event;
+	}
+
+	private static @Nullable Object readPayload(@NotNull ObjectMapper mapper, @NotNull JsonParser parser, @NotNull String type) throws IOException {
+		Class<?> clazz = PAYLOAD_TYPES.get(type);
+		if (clazz == null) {
+			parser.skipChildren();
+			return null;
+		}
+		return mapper.readValue(parser, clazz);
+	}
 }
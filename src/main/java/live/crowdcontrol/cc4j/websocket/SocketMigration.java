@@ -0,0 +1,161 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.CrowdControl;
+import live.crowdcontrol.cc4j.websocket.payload.SubscriptionResultPayload;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves the players of one socket onto a freshly opened replacement without dropping their traffic.
+ * <p>
+ * The replacement is opened and subscribed to every player's topics while the source socket keeps serving them.
+ * Once every subscription has been confirmed, the players are switched over to the replacement,
+ * and the source is closed after writing whatever was already queued on it.
+ * Effect requests received by both sockets in the meantime are only handled once.
+ */
+@ApiStatus.Internal
+final class SocketMigration {
+	private static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/SocketMigration");
+	/**
+	 * Time in seconds that the replacement has to open and subscribe before the migration is abandoned.
+	 */
+	private static final int TIMEOUT = 30;
+	/**
+	 * Time in seconds after switching over that duplicate effect requests continue to be filtered.
+	 */
+	private static final int DEDUPLICATION_GRACE = 10;
+	private final @NotNull Set<String> pendingTopics = ConcurrentHashMap.newKeySet();
+	private final @NotNull Set<UUID> seenRequests = ConcurrentHashMap.newKeySet();
+	private final @NotNull AtomicBoolean finished = new AtomicBoolean();
+	private final @NotNull CompletableFuture<PubSubSocket> result = new CompletableFuture<>();
+	private final @NotNull CrowdControl parent;
+	private final @NotNull SocketPool pool;
+	private final @NotNull PubSubSocket source;
+	private final @NotNull PubSubSocket replacement;
+	private @Nullable ScheduledFuture<?> timeout;
+
+	SocketMigration(@NotNull CrowdControl parent, @NotNull SocketPool pool, @NotNull PubSubSocket source, @NotNull PubSubSocket replacement) {
+		this.parent = parent;
+		this.pool = pool;
+		this.source = source;
+		this.replacement = replacement;
+	}
+
+	@NotNull
+	PubSubSocket getSource() {
+		return source;
+	}
+
+	@NotNull
+	PubSubSocket getReplacement() {
+		return replacement;
+	}
+
+	/**
+	 * Whether the migration has either switched over or been abandoned.
+	 *
+	 * @return is finished
+	 */
+	boolean isFinished() {
+		return finished.get();
+	}
+
+	/**
+	 * Gets a future which completes with the replacement socket once players have been switched over to it,
+	 * or completes exceptionally if the migration is abandoned.
+	 *
+	 * @return migration result
+	 */
+	@NotNull
+	CompletableFuture<PubSubSocket> getResult() {
+		return result;
+	}
+
+	/**
+	 * Records that an effect request has been received by one of the sockets.
+	 *
+	 * @param requestId ID of the effect request
+	 * @return whether this is the first time the request has been received
+	 */
+	boolean firstSighting(@NotNull UUID requestId) {
+		return seenRequests.add(requestId);
+	}
+
+	void start() {
+		source.migration = this;
+		replacement.migration = this;
+		for (ConnectedPlayer player : source.getPlayers())
+			replacement.attach(player);
+
+		timeout = parent.getTimer().schedule(() -> abort("timed out"), TIMEOUT, TimeUnit.SECONDS);
+		replacement.connect();
+		replacement.whenReady().whenComplete(($, e) -> {
+			if (e != null) {
+				abort("replacement failed to open");
+				return;
+			}
+			for (ConnectedPlayer player : replacement.getPlayers())
+				player.subscribeVia(replacement, pendingTopics);
+			if (pendingTopics.isEmpty()) complete();
+		});
+	}
+
+	void onSubscribed(@NotNull SubscriptionResultPayload payload) {
+		if (pendingTopics.isEmpty()) return;
+		pendingTopics.removeAll(payload.getSuccess());
+		for (String topic : payload.getFailure()) {
+			if (pendingTopics.contains(topic)) {
+				abort("replacement failed to subscribe to " + topic);
+				return;
+			}
+		}
+		if (pendingTopics.isEmpty()) complete();
+	}
+
+	private void complete() {
+		if (!finished.compareAndSet(false, true)) return;
+		if (timeout != null) timeout.cancel(false);
+		if (!pool.switchOver(this)) {
+			fail("source socket was closed");
+			return;
+		}
+		log.info("Migrated {} player(s) to a new connection", replacement.getPlayers().size());
+		result.complete(replacement);
+		parent.getTimer().schedule(() -> {
+			if (replacement.migration == this) replacement.migration = null;
+		}, DEDUPLICATION_GRACE, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Abandons the migration, closing the replacement.
+	 * If the source socket has meanwhile lost its connection, it reconnects as usual.
+	 *
+	 * @param reason reason to log
+	 */
+	void abort(@NotNull String reason) {
+		if (!finished.compareAndSet(false, true)) return;
+		if (timeout != null) timeout.cancel(false);
+		fail(reason);
+	}
+
+	private void fail(@NotNull String reason) {
+		log.warn("Abandoning socket migration: {}", reason);
+		pool.abandon(this);
+		source.migration = null;
+		replacement.migration = null;
+		replacement.shutdown();
+		if (!source.isClosed() && !source.canSend()) source.connect();
+		result.completeExceptionally(new IllegalStateException("Socket migration failed: " + reason));
+	}
+}
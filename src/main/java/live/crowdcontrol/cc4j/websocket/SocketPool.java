@@ -0,0 +1,357 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CrowdControl;
+import live.crowdcontrol.cc4j.util.CloseData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns players to the WebSocket connections that carry their traffic.
+ * <p>
+ * By default, every player receives a dedicated socket.
+ * Setting a {@link #setMaxSockets(int) maximum socket count} enables pooling,
+ * where players are instead multiplexed over a limited number of shared sockets.
+ */
+public final class SocketPool {
+	private static final @NotNull Logger log = LoggerFactory.getLogger("CrowdControl/SocketPool");
+	/**
+	 * The default maximum size of an incoming message in characters.
+	 */
+	public static final int DEFAULT_MAX_MESSAGE_SIZE = 1 << 20;
+	/**
+	 * The default time in seconds between keepalive pings.
+	 */
+	public static final int DEFAULT_KEEP_ALIVE_INTERVAL = 15;
+	private final @NotNull List<PubSubSocket> sockets = new ArrayList<>();
+	/**
+	 * Every socket which has not been shut down, including dedicated sockets.
+	 */
+	private final @NotNull Set<PubSubSocket> live = ConcurrentHashMap.newKeySet();
+	private final @NotNull CrowdControl parent;
+	private int maxSockets = 0;
+	private volatile int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
+	private volatile int keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+	private volatile boolean makeBeforeBreak = false;
+	private volatile int inboundHighWatermark = 0;
+	private volatile int inboundLowWatermark = 0;
+	private @Nullable ScheduledFuture<?> keepAlive;
+
+	/**
+	 * Create a SocketPool.
+	 *
+	 * @param parent Crowd Control instance
+	 */
+	public SocketPool(@NotNull CrowdControl parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * Gets the maximum number of shared sockets.
+	 * A value of 0 or less indicates that every player receives a dedicated socket.
+	 *
+	 * @return maximum socket count
+	 */
+	public synchronized int getMaxSockets() {
+		return maxSockets;
+	}
+
+	/**
+	 * Sets the maximum number of shared sockets.
+	 * A value of 0 or less indicates that every player receives a dedicated socket.
+	 * <p>
+	 * This only affects players added after the call.
+	 *
+	 * @param maxSockets maximum socket count
+	 */
+	public synchronized void setMaxSockets(int maxSockets) {
+		this.maxSockets = maxSockets;
+	}
+
+	/**
+	 * Gets the maximum size in characters of an incoming message.
+	 * Larger messages are discarded.
+	 *
+	 * @return maximum message size
+	 */
+	public int getMaxMessageSize() {
+		return maxMessageSize;
+	}
+
+	/**
+	 * Sets the maximum size in characters of an incoming message.
+	 * Larger messages are discarded.
+	 *
+	 * @param maxMessageSize maximum message size
+	 */
+	public void setMaxMessageSize(int maxMessageSize) {
+		if (maxMessageSize < 1) throw new IllegalArgumentException("maxMessageSize must be positive");
+		this.maxMessageSize = maxMessageSize;
+	}
+
+	/**
+	 * Gets the time in seconds between keepalive pings.
+	 * A socket whose ping has not been answered by the next ping is closed and reconnected.
+	 *
+	 * @return keepalive interval in seconds
+	 */
+	public int getKeepAliveInterval() {
+		return keepAliveInterval;
+	}
+
+	/**
+	 * Sets the time in seconds between keepalive pings.
+	 * A socket whose ping has not been answered by the next ping is closed and reconnected.
+	 *
+	 * @param keepAliveInterval keepalive interval in seconds
+	 */
+	public void setKeepAliveInterval(int keepAliveInterval) {
+		if (keepAliveInterval < 1) throw new IllegalArgumentException("keepAliveInterval must be positive");
+		this.keepAliveInterval = keepAliveInterval;
+	}
+
+	/**
+	 * Gets the number of inbound events awaiting handling at which a socket stops reading from the server.
+	 * A value of 0 indicates that sockets read without limit.
+	 *
+	 * @return high watermark
+	 */
+	public int getInboundHighWatermark() {
+		return inboundHighWatermark;
+	}
+
+	/**
+	 * Gets the number of inbound events awaiting handling at which a paused socket resumes reading from the server.
+	 *
+	 * @return low watermark
+	 */
+	public int getInboundLowWatermark() {
+		return inboundLowWatermark;
+	}
+
+	/**
+	 * Enables inbound flow control.
+	 * <p>
+	 * Each socket only requests frames from the server while fewer than {@code high} of the events it has dispatched
+	 * are still being handled by players' listeners.
+	 * Once that many are outstanding, the socket stops reading until the backlog drains to {@code low},
+	 * leaving further messages to queue up in the network and on the server rather than in memory.
+	 * <p>
+	 * This takes effect as sockets next connect.
+	 *
+	 * @param high backlog at which to pause reading, or 0 to read without limit
+	 * @param low  backlog at which to resume reading
+	 */
+	public void setInboundWatermarks(int high, int low) {
+		if (high < 0) throw new IllegalArgumentException("high must not be negative");
+		if (high > 0 && (low < 0 || low >= high)) throw new IllegalArgumentException("low must be between 0 and high");
+		this.inboundHighWatermark = high;
+		this.inboundLowWatermark = high == 0 ? 0 : low;
+	}
+
+	/**
+	 * Whether sockets which fail a keepalive are migrated to a new connection before being closed.
+	 *
+	 * @return uses make-before-break reconnection
+	 */
+	public boolean isMakeBeforeBreak() {
+		return makeBeforeBreak;
+	}
+
+	/**
+	 * Sets whether sockets which fail a keepalive are migrated to a new connection before being closed.
+	 * See {@link #migrate(PubSubSocket)} for details.
+	 *
+	 * @param makeBeforeBreak whether to use make-before-break reconnection
+	 */
+	public void setMakeBeforeBreak(boolean makeBeforeBreak) {
+		this.makeBeforeBreak = makeBeforeBreak;
+	}
+
+	/**
+	 * Replaces a socket with a new connection without interrupting its players' traffic.
+	 * <p>
+	 * The replacement is opened and subscribed to every player's topics while the existing socket continues to serve them.
+	 * Once the subscriptions are confirmed, players are switched over to the replacement,
+	 * and the existing socket is closed after writing any messages already queued on it.
+	 * If the replacement fails to open or subscribe, it is discarded and the existing socket is kept.
+	 *
+	 * @param socket socket to replace
+	 * @return future to complete with the replacement socket once players have been switched over to it
+	 */
+	public synchronized @NotNull CompletableFuture<PubSubSocket> migrate(@NotNull PubSubSocket socket) {
+		SocketMigration existing = socket.migration;
+		if (existing != null && !existing.isFinished()) return existing.getResult();
+		if (socket.isClosed() || socket.isStandby())
+			return CompletableFuture.failedFuture(new IllegalStateException("Socket cannot be migrated"));
+
+		PubSubSocket replacement = new PubSubSocket(parent, socket.isShared());
+		track(replacement);
+		SocketMigration migration = new SocketMigration(parent, this, socket, replacement);
+		migration.start();
+		return migration.getResult();
+	}
+
+	/**
+	 * Switches the players of a migration's source socket over to its replacement and retires the source.
+	 *
+	 * @param migration completed migration
+	 * @return whether the switch happened, which it does not if the source has since been shut down
+	 */
+	synchronized boolean switchOver(@NotNull SocketMigration migration) {
+		PubSubSocket source = migration.getSource();
+		PubSubSocket replacement = migration.getReplacement();
+		if (source.isClosed()) return false;
+
+		for (ConnectedPlayer player : source.getPlayers()) {
+			source.detach(player);
+			if (!player.moveSocket(source, replacement)) {
+				replacement.detach(player);
+				continue;
+			}
+			// players who joined mid-migration have not subscribed yet, so they are attached normally
+			replacement.attach(player);
+		}
+		// players who left mid-migration
+		for (ConnectedPlayer player : replacement.getPlayers()) {
+			if (player.getSocket() != replacement) replacement.detach(player);
+		}
+
+		int index = sockets.indexOf(source);
+		if (index != -1) sockets.set(index, replacement);
+		live.remove(source);
+		source.retire();
+		return true;
+	}
+
+	/**
+	 * Discards the replacement socket of an abandoned migration.
+	 *
+	 * @param migration abandoned migration
+	 */
+	synchronized void abandon(@NotNull SocketMigration migration) {
+		PubSubSocket replacement = migration.getReplacement();
+		live.remove(replacement);
+		for (ConnectedPlayer player : replacement.getPlayers())
+			replacement.detach(player);
+	}
+
+	/**
+	 * Pings every live socket and closes those which did not answer the previous ping.
+	 * A single sweep serves every socket, so keepalives cost one timer task per interval rather than several per socket.
+	 */
+	private void sweepKeepAlive() {
+		for (PubSubSocket socket : live) {
+			try {
+				socket.sweepKeepAlive();
+			} catch (Exception e) {
+				log.warn("Failed to ping socket", e);
+			}
+		}
+		scheduleKeepAlive();
+	}
+
+	private synchronized void scheduleKeepAlive() {
+		if (live.isEmpty()) {
+			keepAlive = null;
+			return;
+		}
+		keepAlive = parent.getTimer().schedule(this::sweepKeepAlive, keepAliveInterval, TimeUnit.SECONDS);
+	}
+
+	private void track(@NotNull PubSubSocket socket) {
+		live.add(socket);
+		if (keepAlive == null) scheduleKeepAlive();
+	}
+
+	/**
+	 * Gets the shared sockets that are currently open.
+	 * The returned collection is not a view; changes to it will not be reflected.
+	 *
+	 * @return shared sockets
+	 */
+	public synchronized @NotNull List<PubSubSocket> getSockets() {
+		return new ArrayList<>(sockets);
+	}
+
+	/**
+	 * Assigns a socket to a player and attaches the player to it.
+	 *
+	 * @param player player to connect
+	 * @return assigned socket
+	 */
+	synchronized @NotNull PubSubSocket acquire(@NotNull ConnectedPlayer player) {
+		if (maxSockets <= 0) {
+			PubSubSocket socket = new PubSubSocket(parent, false);
+			track(socket);
+			socket.attach(player);
+			socket.connect();
+			return socket;
+		}
+
+		PubSubSocket socket;
+		if (sockets.size() < maxSockets) {
+			socket = new PubSubSocket(parent, true);
+			sockets.add(socket);
+			track(socket);
+			socket.attach(player);
+			socket.connect();
+			return socket;
+		}
+
+		socket = sockets.stream().min(Comparator.comparingInt(s -> s.getPlayers().size())).orElseThrow();
+		socket.attach(player);
+		return socket;
+	}
+
+	/**
+	 * Detaches a player from its socket, closing the socket once its queued messages are written if it is no longer in use.
+	 *
+	 * @param player player to disconnect
+	 * @param socket socket assigned to the player
+	 * @return future to complete when the player has been released
+	 */
+	synchronized @NotNull CompletableFuture<?> release(@NotNull ConnectedPlayer player, @Nullable PubSubSocket socket) {
+		if (socket == null) return CompletableFuture.completedFuture(null);
+
+		// a stale release, such as from a player who has since been migrated elsewhere, must not touch the socket
+		if (!socket.detach(player)) return CompletableFuture.completedFuture(null);
+		SocketMigration migration = socket.migration;
+		if (migration != null && migration.getSource() == socket) migration.getReplacement().detach(player);
+		if (socket.canSend())
+			player.getEventManager().dispatch(CCEventType.DISCONNECTED, new CloseData(WebSocket.NORMAL_CLOSURE, null, false));
+		if (!socket.getPlayers().isEmpty()) return CompletableFuture.completedFuture(null);
+
+		sockets.remove(socket);
+		live.remove(socket);
+		if (migration != null && migration.getSource() == socket) migration.abort("source socket was closed");
+		// the departing player's final messages, such as flushed effect responses, may still be queued
+		return socket.retire();
+	}
+
+	/**
+	 * Permanently closes all shared sockets.
+	 */
+	public synchronized void close() {
+		for (PubSubSocket socket : sockets)
+			socket.shutdown();
+		sockets.clear();
+		live.clear();
+		if (keepAlive != null) {
+			keepAlive.cancel(false);
+			keepAlive = null;
+		}
+	}
+}
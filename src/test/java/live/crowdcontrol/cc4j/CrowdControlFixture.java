@@ -0,0 +1,53 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.websocket.ConnectedPlayer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Base for tests which need a Crowd Control instance.
+ * The instance never fetches its game pack, so tests run offline.
+ */
+public abstract class CrowdControlFixture {
+	@TempDir
+	protected Path dataFolder;
+	protected CrowdControl cc;
+
+	@BeforeEach
+	protected void createCrowdControl() {
+		cc = offline(dataFolder);
+	}
+
+	@AfterEach
+	protected void closeCrowdControl() {
+		cc.close();
+	}
+
+	/**
+	 * Creates a player which is not registered with {@link #cc} and never connects.
+	 *
+	 * @return player
+	 */
+	protected @NotNull ConnectedPlayer newPlayer() {
+		return new ConnectedPlayer(UUID.randomUUID(), cc);
+	}
+
+	/**
+	 * Creates a Crowd Control instance which does not fetch its game pack.
+	 *
+	 * @param dataFolder folder for player tokens
+	 * @return Crowd Control instance
+	 */
+	public static @NotNull CrowdControl offline(@NotNull Path dataFolder) {
+		return new CrowdControl("game", "pack", "app", "secret", dataFolder) {
+			@Override
+			public void loadGamePack() {
+			}
+		};
+	}
+}
@@ -0,0 +1,30 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.util.HashedWheelTimer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrowdControlTimerTest extends CrowdControlFixture {
+	@Test
+	void closingLeavesAnInstalledTimerRunning() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		HashedWheelTimer timer = new HashedWheelTimer(executor);
+		try {
+			cc.setTimer(timer);
+			cc.close();
+
+			CountDownLatch ran = new CountDownLatch(1);
+			assertFalse(timer.schedule(ran::countDown, 0, TimeUnit.MILLISECONDS).isCancelled(), "installed timer was closed");
+			assertTrue(ran.await(5, TimeUnit.SECONDS));
+		} finally {
+			timer.close();
+			executor.shutdown();
+		}
+	}
+}
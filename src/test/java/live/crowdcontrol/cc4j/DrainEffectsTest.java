@@ -0,0 +1,83 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.websocket.ConnectedPlayer;
+import live.crowdcontrol.cc4j.websocket.payload.PublicEffectPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrainEffectsTest extends CrowdControlFixture {
+	ConnectedPlayer player;
+	List<Thread> ranOn = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		cc.setEffectDispatchMode(EffectDispatchMode.GAME_LOOP);
+		cc.addEffect("tick", (request, source) -> ranOn.add(Thread.currentThread()));
+		player = newPlayer();
+	}
+
+	@Test
+	void effectsWaitForTheGameLoop() {
+		cc.executeEffect(Effects.request("tick"), player);
+		assertTrue(ranOn.isEmpty());
+
+		assertEquals(1, cc.drainEffects(10, TimeUnit.MILLISECONDS.toNanos(50)));
+		assertEquals(List.of(Thread.currentThread()), ranOn);
+		assertEquals(0, cc.drainEffects(10, TimeUnit.MILLISECONDS.toNanos(50)));
+	}
+
+	@Test
+	void drainStopsAtMaxCount() {
+		for (int i = 0; i < 5; i++)
+			cc.executeEffect(Effects.request("tick"), player);
+
+		assertEquals(2, cc.drainEffects(2, Long.MAX_VALUE / 2));
+		assertEquals(2, ranOn.size());
+		assertEquals(3, cc.drainEffects(10, Long.MAX_VALUE / 2));
+	}
+
+	@Test
+	void drainStopsOnceTheBudgetIsSpent() {
+		cc.addEffect("slow", (request, source) -> {
+			ranOn.add(Thread.currentThread());
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException ignored) {
+			}
+		});
+		for (int i = 0; i < 3; i++)
+			cc.executeEffect(Effects.request("slow"), player);
+
+		// the budget is only checked between effects, so the first always runs
+		assertEquals(1, cc.drainEffects(10, 1));
+	}
+
+	@Test
+	void cancelledEffectsAreSkipped() {
+		PublicEffectPayload cancelled = Effects.request("tick");
+		cc.executeEffect(cancelled, player);
+		cc.executeEffect(Effects.request("tick"), player);
+		cc.cancelByRequestId(cancelled.getRequestId());
+
+		assertEquals(1, cc.drainEffects(10, Long.MAX_VALUE / 2));
+		assertEquals(1, ranOn.size());
+	}
+
+	@Test
+	void switchingToThePoolHandsOffQueuedEffects() throws InterruptedException {
+		CountDownLatch ran = new CountDownLatch(1);
+		cc.addEffect("pooled", (request, source) -> ran.countDown());
+		cc.executeEffect(Effects.request("pooled"), player);
+
+		cc.setEffectDispatchMode(EffectDispatchMode.POOL);
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+		assertEquals(0, cc.drainEffects(10, Long.MAX_VALUE / 2));
+	}
+}
@@ -0,0 +1,134 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.websocket.ConnectedPlayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffectAdmissionTest extends CrowdControlFixture {
+	ConnectedPlayer alice;
+	ConnectedPlayer bob;
+	List<ActiveEffect> started;
+	EffectAdmission admission;
+
+	@BeforeEach
+	void setUp() {
+		alice = newPlayer();
+		bob = newPlayer();
+		started = new ArrayList<>();
+		admission = new EffectAdmission(started::add);
+	}
+
+	private ActiveEffect effect(ConnectedPlayer player) {
+		return new ActiveEffect(cc, () -> (request, source) -> {}, Effects.request("effect"), player, ExecutionPolicy.unrestricted());
+	}
+
+	@Test
+	void unlimitedStartsEverything() {
+		for (int i = 0; i < 10; i++)
+			assertEquals(EffectAdmission.Outcome.STARTED, admission.submit(effect(alice)));
+		assertEquals(10, started.size());
+	}
+
+	@Test
+	void globalLimitQueuesInOrder() {
+		admission.setConcurrencyLimits(1, 0);
+		ActiveEffect first = effect(alice);
+		ActiveEffect second = effect(bob);
+		ActiveEffect third = effect(alice);
+
+		assertEquals(EffectAdmission.Outcome.STARTED, admission.submit(first));
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(second));
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(third));
+		assertEquals(List.of(first), started);
+
+		admission.release(first);
+		assertEquals(List.of(first, second), started);
+		admission.release(second);
+		assertEquals(List.of(first, second, third), started);
+	}
+
+	@Test
+	void playerAtTheirLimitDoesNotHoldUpOthers() {
+		admission.setConcurrencyLimits(2, 1);
+		ActiveEffect aliceFirst = effect(alice);
+		ActiveEffect aliceSecond = effect(alice);
+		ActiveEffect bobFirst = effect(bob);
+
+		assertEquals(EffectAdmission.Outcome.STARTED, admission.submit(aliceFirst));
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(aliceSecond));
+		assertEquals(EffectAdmission.Outcome.STARTED, admission.submit(bobFirst));
+
+		// bob finishing frees a global slot, but alice is still at the per-player limit
+		admission.release(bobFirst);
+		assertEquals(List.of(aliceFirst, bobFirst), started);
+
+		admission.release(aliceFirst);
+		assertEquals(List.of(aliceFirst, bobFirst, aliceSecond), started);
+	}
+
+	@Test
+	void releaseSkipsPastPlayersAtTheirLimit() {
+		admission.setConcurrencyLimits(2, 1);
+		ActiveEffect aliceFirst = effect(alice);
+		ActiveEffect aliceSecond = effect(alice);
+		ActiveEffect bobFirst = effect(bob);
+		ActiveEffect bobSecond = effect(bob);
+
+		admission.submit(aliceFirst);
+		admission.submit(bobFirst);
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(aliceSecond));
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(bobSecond));
+
+		admission.release(bobFirst);
+		assertEquals(List.of(aliceFirst, bobFirst, bobSecond), started);
+	}
+
+	@Test
+	void queueLimitsReject() {
+		admission.setConcurrencyLimits(1, 0);
+		admission.setQueueLimits(2, 1);
+
+		assertEquals(EffectAdmission.Outcome.STARTED, admission.submit(effect(alice)));
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(effect(alice)));
+		assertEquals(EffectAdmission.Outcome.REJECTED, admission.submit(effect(alice)), "per-player queue limit");
+		assertEquals(EffectAdmission.Outcome.QUEUED, admission.submit(effect(bob)));
+		assertEquals(EffectAdmission.Outcome.REJECTED, admission.submit(effect(bob)), "global queue limit");
+	}
+
+	@Test
+	void dequeuedEffectIsNotStarted() {
+		admission.setConcurrencyLimits(1, 0);
+		ActiveEffect running = effect(alice);
+		ActiveEffect cancelled = effect(alice);
+		admission.submit(running);
+		admission.submit(cancelled);
+
+		assertTrue(admission.dequeue(cancelled));
+		assertFalse(admission.dequeue(cancelled));
+		assertFalse(admission.dequeue(running), "running effect is not queued");
+
+		admission.release(running);
+		assertEquals(List.of(running), started);
+	}
+
+	@Test
+	void metricsCountOutcomes() {
+		admission.setConcurrencyLimits(1, 0);
+		admission.setQueueLimits(1, 0);
+		ActiveEffect first = effect(alice);
+		admission.submit(first);
+		admission.submit(effect(alice));
+		admission.submit(effect(bob));
+
+		assertEquals(new AdmissionMetrics(1, 1, 1, 1, 1), admission.getMetrics());
+
+		admission.release(first);
+		// promotion from the queue does not count as a second admission
+		assertEquals(new AdmissionMetrics(1, 1, 1, 1, 0), admission.getMetrics());
+	}
+}
@@ -0,0 +1,105 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.websocket.ConnectedPlayer;
+import live.crowdcontrol.cc4j.websocket.data.CCEffectResponse;
+import live.crowdcontrol.cc4j.websocket.data.ResponseStatus;
+import live.crowdcontrol.cc4j.websocket.payload.PublicEffectPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffectExecutionTest extends CrowdControlFixture {
+	ConnectedPlayer player;
+
+	@BeforeEach
+	void setUp() {
+		player = newPlayer();
+	}
+
+	@Test
+	void cancellingAdmissionQueuedExclusiveEffectFreesItsLane() throws InterruptedException {
+		CountDownLatch blocking = new CountDownLatch(1);
+		CountDownLatch firstRan = new CountDownLatch(1);
+		CountDownLatch secondRan = new CountDownLatch(1);
+		cc.addEffect("blocker", (request, source) -> {
+			try {
+				blocking.await();
+			} catch (InterruptedException ignored) {
+			}
+		});
+		cc.addEffect("first", (request, source) -> firstRan.countDown(), ExecutionPolicy.exclusive("group"));
+		cc.addEffect("second", (request, source) -> secondRan.countDown(), ExecutionPolicy.exclusive("group"));
+		cc.setEffectConcurrencyLimits(1, 0);
+
+		cc.executeEffect(Effects.request("blocker"), player);
+		PublicEffectPayload first = Effects.request("first");
+		cc.executeEffect(first, player); // holds the group's lane while waiting for the global slot
+		cc.executeEffect(Effects.request("second"), player); // waits behind first in the lane
+		assertEquals(1, cc.getAdmissionMetrics().waiting());
+
+		cc.cancelByRequestId(first.getRequestId());
+		blocking.countDown();
+
+		assertTrue(secondRan.await(5, TimeUnit.SECONDS), "effect queued behind a cancelled one never ran");
+		assertEquals(1, firstRan.getCount(), "cancelled effect ran");
+	}
+
+	@Test
+	void rejectedEffectPassesOnItsLane() throws InterruptedException {
+		CountDownLatch blocking = new CountDownLatch(1);
+		CountDownLatch fillerRan = new CountDownLatch(1);
+		CountDownLatch exclusiveRan = new CountDownLatch(1);
+		cc.addEffect("blocker", (request, source) -> {
+			try {
+				blocking.await();
+			} catch (InterruptedException ignored) {
+			}
+		});
+		cc.addEffect("filler", (request, source) -> fillerRan.countDown());
+		cc.addEffect("exclusive", (request, source) -> exclusiveRan.countDown(), ExecutionPolicy.exclusive("group"));
+		cc.setEffectConcurrencyLimits(1, 0);
+		cc.setEffectQueueLimits(1, 0);
+
+		cc.executeEffect(Effects.request("blocker"), player);
+		cc.executeEffect(Effects.request("filler"), player); // takes the only queue position
+		cc.executeEffect(Effects.request("exclusive"), player); // takes the lane, then is rejected
+
+		AdmissionMetrics metrics = cc.getAdmissionMetrics();
+		assertEquals(1, metrics.rejected());
+		assertEquals(1, metrics.queued());
+
+		blocking.countDown();
+		assertTrue(fillerRan.await(5, TimeUnit.SECONDS));
+		cc.executeEffect(Effects.request("exclusive"), player);
+		assertTrue(exclusiveRan.await(5, TimeUnit.SECONDS), "rejected effect kept its lane");
+	}
+
+	@Test
+	void supplierRunsOffTheReceivingThread() throws Exception {
+		CompletableFuture<Thread> suppliedOn = new CompletableFuture<>();
+		cc.addEffect("effect", () -> {
+			suppliedOn.complete(Thread.currentThread());
+			return (request, source) -> {};
+		});
+
+		cc.executeEffect(Effects.request("effect"), player);
+		assertNotSame(Thread.currentThread(), suppliedOn.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void failingSupplierRespondsWithPermanentFailure() throws Exception {
+		CompletableFuture<CCEffectResponse> response = new CompletableFuture<>();
+		player.getEventManager().registerEventConsumer(CCEventType.EFFECT_RESPONSE, response::complete, 0, true);
+		cc.addEffect("broken", () -> {
+			throw new IllegalStateException("broken");
+		});
+
+		cc.executeEffect(Effects.request("broken"), player);
+		assertEquals(ResponseStatus.FAIL_PERMANENT, response.get(5, TimeUnit.SECONDS).getStatus());
+	}
+}
@@ -0,0 +1,25 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.websocket.payload.CCEffectDescription;
+import live.crowdcontrol.cc4j.websocket.payload.CCName;
+import live.crowdcontrol.cc4j.websocket.payload.CCUserRecord;
+import live.crowdcontrol.cc4j.websocket.payload.ProfileType;
+import live.crowdcontrol.cc4j.websocket.payload.PublicEffectPayload;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Builders for effect requests used across tests.
+ */
+final class Effects {
+	private static final @NotNull CCUserRecord VIEWER = new CCUserRecord("ccuid-01j7cnrvpbh5aw45pwpe1vqvdw", "viewer", ProfileType.TWITCH, "1", "");
+
+	private Effects() {
+	}
+
+	static @NotNull PublicEffectPayload request(@NotNull String effectId) {
+		CCEffectDescription effect = new CCEffectDescription(effectId, "game", new CCName(effectId), null, null, null, false, false, false, false, false, false, null, null, null, null);
+		return new PublicEffectPayload(UUID.randomUUID(), System.currentTimeMillis(), effect, VIEWER, null, null, false, 1);
+	}
+}
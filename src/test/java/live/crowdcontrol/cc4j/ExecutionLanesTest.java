@@ -0,0 +1,95 @@
+package live.crowdcontrol.cc4j;
+
+import live.crowdcontrol.cc4j.websocket.ConnectedPlayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionLanesTest extends CrowdControlFixture {
+	ConnectedPlayer alice;
+	ConnectedPlayer bob;
+	ExecutionLanes lanes;
+
+	@BeforeEach
+	void setUp() {
+		alice = newPlayer();
+		bob = newPlayer();
+		lanes = new ExecutionLanes();
+	}
+
+	private ActiveEffect effect(String effectId, ConnectedPlayer player, ExecutionPolicy policy) {
+		return new ActiveEffect(cc, () -> (request, source) -> {}, Effects.request(effectId), player, policy);
+	}
+
+	@Test
+	void unrestrictedAlwaysProceeds() {
+		for (int i = 0; i < 5; i++)
+			assertTrue(lanes.acquire(effect("effect", alice, ExecutionPolicy.unrestricted())));
+		assertNull(lanes.release(effect("effect", alice, ExecutionPolicy.unrestricted())));
+	}
+
+	@Test
+	void serialPerPlayerQueuesSamePlayerOnly() {
+		ExecutionPolicy policy = ExecutionPolicy.serialPerPlayer();
+		ActiveEffect aliceFirst = effect("effect", alice, policy);
+		ActiveEffect aliceSecond = effect("effect", alice, policy);
+
+		assertTrue(lanes.acquire(aliceFirst));
+		assertFalse(lanes.acquire(aliceSecond));
+		assertTrue(lanes.acquire(effect("effect", bob, policy)), "other players have their own lane");
+		assertTrue(lanes.acquire(effect("other", alice, policy)), "other effects have their own lane");
+
+		assertSame(aliceSecond, lanes.release(aliceFirst));
+		assertNull(lanes.release(aliceSecond));
+		assertTrue(lanes.acquire(effect("effect", alice, policy)), "lane is free once drained");
+	}
+
+	@Test
+	void maxConcurrentAllowsUpToLimit() {
+		ExecutionPolicy policy = ExecutionPolicy.maxConcurrent(2);
+		ActiveEffect first = effect("effect", alice, policy);
+		ActiveEffect second = effect("effect", bob, policy);
+		ActiveEffect third = effect("effect", alice, policy);
+		ActiveEffect fourth = effect("effect", bob, policy);
+
+		assertTrue(lanes.acquire(first));
+		assertTrue(lanes.acquire(second));
+		assertFalse(lanes.acquire(third));
+		assertFalse(lanes.acquire(fourth));
+
+		assertSame(third, lanes.release(first));
+		assertSame(fourth, lanes.release(second));
+		assertNull(lanes.release(third));
+		assertTrue(lanes.acquire(effect("effect", alice, policy)));
+		assertFalse(lanes.acquire(effect("effect", alice, policy)));
+	}
+
+	@Test
+	void exclusiveGroupSpansEffectsAndPlayers() {
+		ActiveEffect first = effect("one", alice, ExecutionPolicy.exclusive("group"));
+		ActiveEffect second = effect("two", bob, ExecutionPolicy.exclusive("group"));
+
+		assertTrue(lanes.acquire(first));
+		assertFalse(lanes.acquire(second));
+		assertTrue(lanes.acquire(effect("one", alice, ExecutionPolicy.exclusive("elsewhere"))));
+		assertSame(second, lanes.release(first));
+	}
+
+	@Test
+	void dequeuedEffectIsSkipped() {
+		ExecutionPolicy policy = ExecutionPolicy.exclusive("group");
+		ActiveEffect running = effect("effect", alice, policy);
+		ActiveEffect cancelled = effect("effect", alice, policy);
+		ActiveEffect next = effect("effect", alice, policy);
+
+		lanes.acquire(running);
+		lanes.acquire(cancelled);
+		lanes.acquire(next);
+		lanes.dequeue(cancelled);
+
+		assertSame(next, lanes.release(running));
+		assertNull(lanes.release(next));
+		assertTrue(lanes.acquire(effect("effect", alice, policy)));
+	}
+}
@@ -0,0 +1,108 @@
+package live.crowdcontrol.cc4j.util;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CCMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventHistoryTest {
+	private static EventRecord<CCMessage> record(String message) {
+		return new EventRecord<>(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.INFO, message));
+	}
+
+	private static List<String> messages(List<EventRecord<CCMessage>> records) {
+		return records.stream().map(record -> record.getEventBody().message()).toList();
+	}
+
+	@Test
+	void retainsMostRecentRecordsOldestFirst() {
+		EventHistory history = new EventHistory(3);
+		for (int i = 1; i <= 5; i++)
+			history.add(record(String.valueOf(i)));
+
+		assertEquals(List.of("3", "4", "5"), messages(history.getRecords(null)));
+	}
+
+	@Test
+	void returnsEverythingBeforeFilling() {
+		EventHistory history = new EventHistory(8);
+		history.add(record("a"));
+		history.add(record("b"));
+
+		assertEquals(List.of("a", "b"), messages(history.getRecords(null)));
+	}
+
+	@Test
+	void excludesRecordsBeforeCutoff() throws InterruptedException {
+		EventHistory history = new EventHistory(8);
+		history.add(record("old"));
+		Thread.sleep(20);
+		Instant cutoff = Instant.now();
+		history.add(record("new"));
+
+		assertEquals(List.of("new"), messages(history.getRecords(cutoff)));
+	}
+
+	@Test
+	void concurrentAppendsLeaveConsecutiveLatestRecords() throws InterruptedException {
+		int capacity = 64;
+		EventHistory history = new EventHistory(capacity);
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++)
+					history.add(record("x"));
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers)
+			writer.join();
+
+		List<EventRecord<CCMessage>> records = history.getRecords(null);
+		assertEquals(capacity, records.size());
+		long expected = 40_000 - capacity;
+		for (EventRecord<CCMessage> record : records)
+			assertEquals(expected++, record.sequence);
+	}
+
+	@Test
+	void retiringReturnsRecordsAndRejectsLaterOnes() {
+		EventHistory history = new EventHistory(4);
+		assertTrue(history.add(record("kept")));
+
+		List<EventRecord<Object>> retained = history.retire();
+		assertNotNull(retained);
+		assertEquals(1, retained.size());
+		assertFalse(history.add(record("late")));
+		assertNull(history.retire(), "history was retired twice");
+		assertEquals(List.of("kept"), messages(history.getRecords(null)));
+	}
+
+	@Test
+	void retiringWaitsForAppendsInProgress() throws InterruptedException {
+		EventHistory history = new EventHistory(100_000);
+		AtomicInteger appended = new AtomicInteger();
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			writers[t] = new Thread(() -> {
+				// stays within capacity, so every retained record can be counted
+				for (int i = 0; i < 20_000 && history.add(record("x")); i++)
+					appended.incrementAndGet();
+			});
+			writers[t].start();
+		}
+		while (appended.get() < 1_000)
+			Thread.yield();
+
+		List<EventRecord<Object>> retained = history.retire();
+		for (Thread writer : writers)
+			writer.join();
+		assertNotNull(retained);
+		assertEquals(appended.get(), retained.size(), "an append accepted before retiring was not retained");
+	}
+}
@@ -0,0 +1,86 @@
+package live.crowdcontrol.cc4j.util;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CCMessage;
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventManagerHistoryTest extends CrowdControlFixture {
+	EventManager events;
+
+	@BeforeEach
+	void setUp() {
+		events = new EventManager(cc);
+	}
+
+	private int caughtUp(CCEventType<?> event) {
+		AtomicInteger count = new AtomicInteger();
+		events.registerEventConsumer(event, $ -> count.incrementAndGet(), -1, true).unregister();
+		return count.get();
+	}
+
+	@Test
+	void floodOfOneTypeDoesNotEvictAnother() {
+		events.dispatch(CCEventType.AUTHENTICATED);
+		for (int i = 0; i < 1_000; i++)
+			events.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.INFO, "spam"));
+
+		assertEquals(1, caughtUp(CCEventType.AUTHENTICATED));
+		assertEquals(EventManager.RECORD_LIMIT, caughtUp(CCEventType.MESSAGE));
+	}
+
+	@Test
+	void recordLimitAppliesPerType() {
+		events.setRecordLimit(CCEventType.MESSAGE, 0);
+		events.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.INFO, "gone"));
+		assertEquals(0, caughtUp(CCEventType.MESSAGE));
+
+		events.setRecordLimit(CCEventType.MESSAGE, 2);
+		for (int i = 0; i < 5; i++)
+			events.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.INFO, String.valueOf(i)));
+		List<String> seen = new CopyOnWriteArrayList<>();
+		events.registerEventConsumer(CCEventType.MESSAGE, message -> seen.add(message.message()), -1, true);
+		assertEquals(List.of("3", "4"), seen);
+	}
+
+	@Test
+	void resizingKeepsConcurrentlyRecordedEvents() throws InterruptedException {
+		int total = 5_000;
+		events.setRecordLimit(CCEventType.MESSAGE, total);
+		Thread dispatcher = new Thread(() -> {
+			for (int i = 0; i < total; i++)
+				events.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.INFO, "m"));
+		});
+		dispatcher.start();
+		// every limit is large enough to hold all events, so none may be lost to a resize
+		for (int limit = total; dispatcher.isAlive(); limit = limit == total ? total + 1 : total)
+			events.setRecordLimit(CCEventType.MESSAGE, limit);
+		dispatcher.join();
+
+		assertEquals(total, caughtUp(CCEventType.MESSAGE));
+	}
+
+	@Test
+	void disablingHistoryWhileRecordingLeavesNothingBehind() throws InterruptedException {
+		Thread dispatcher = new Thread(() -> {
+			for (int i = 0; i < 5_000; i++)
+				events.dispatch(CCEventType.MESSAGE, new CCMessage(CCMessage.Level.INFO, "m"));
+		});
+		dispatcher.start();
+		while (dispatcher.isAlive()) {
+			events.setRecordLimit(CCEventType.MESSAGE, 0);
+			events.setRecordLimit(CCEventType.MESSAGE, 10);
+		}
+		dispatcher.join();
+		events.setRecordLimit(CCEventType.MESSAGE, 0);
+
+		assertEquals(0, caughtUp(CCEventType.MESSAGE));
+	}
+}
@@ -0,0 +1,140 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+	// a small wheel of short ticks, so that tests exercise multiple rotations quickly
+	private final HashedWheelTimer timer = new HashedWheelTimer(Runnable::run, 5, TimeUnit.MILLISECONDS, 4);
+
+	@AfterEach
+	void tearDown() {
+		timer.close();
+	}
+
+	@Test
+	void runsTaskNoEarlierThanItsDelay() throws InterruptedException {
+		CountDownLatch ran = new CountDownLatch(1);
+		long start = System.nanoTime();
+		long[] ranAt = new long[1];
+		timer.schedule(() -> {
+			ranAt[0] = System.nanoTime();
+			ran.countDown();
+		}, 30, TimeUnit.MILLISECONDS);
+
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		assertTrue(ranAt[0] - start >= TimeUnit.MILLISECONDS.toNanos(30), "task ran early");
+	}
+
+	@Test
+	void runsTasksBeyondOneRotation() throws InterruptedException {
+		// 4 slots of 5ms make one rotation 20ms
+		List<Integer> order = new CopyOnWriteArrayList<>();
+		CountDownLatch ran = new CountDownLatch(3);
+		timer.schedule(() -> { order.add(3); ran.countDown(); }, 95, TimeUnit.MILLISECONDS);
+		timer.schedule(() -> { order.add(1); ran.countDown(); }, 15, TimeUnit.MILLISECONDS);
+		timer.schedule(() -> { order.add(2); ran.countDown(); }, 55, TimeUnit.MILLISECONDS);
+
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		assertEquals(List.of(1, 2, 3), order);
+	}
+
+	@Test
+	void cancelledTaskDoesNotRun() throws InterruptedException {
+		CountDownLatch ran = new CountDownLatch(1);
+		CountDownLatch control = new CountDownLatch(1);
+		ScheduledFuture<?> future = timer.schedule(ran::countDown, 20, TimeUnit.MILLISECONDS);
+		timer.schedule(control::countDown, 40, TimeUnit.MILLISECONDS);
+
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		assertTrue(control.await(2, TimeUnit.SECONDS));
+		assertEquals(1, ran.getCount(), "cancelled task ran");
+		assertFalse(future.cancel(false), "task was cancelled twice");
+		assertThrows(CancellationException.class, future::get);
+	}
+
+	@Test
+	void completedTaskCannotBeCancelled() throws Exception {
+		ScheduledFuture<?> future = timer.schedule(() -> {}, 0, TimeUnit.MILLISECONDS);
+		future.get(2, TimeUnit.SECONDS);
+
+		assertTrue(future.isDone());
+		assertFalse(future.cancel(false));
+		assertFalse(future.isCancelled());
+	}
+
+	@Test
+	void reportsRemainingDelay() {
+		ScheduledFuture<?> future = timer.schedule(() -> {}, 10, TimeUnit.SECONDS);
+
+		long remaining = future.getDelay(TimeUnit.MILLISECONDS);
+		assertTrue(remaining > 9_000 && remaining <= 10_000, "remaining delay was " + remaining);
+		future.cancel(false);
+	}
+
+	@Test
+	void closeDiscardsPendingTasks() throws InterruptedException {
+		CountDownLatch ran = new CountDownLatch(1);
+		ScheduledFuture<?> future = timer.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+		timer.close();
+
+		assertFalse(ran.await(150, TimeUnit.MILLISECONDS));
+		assertTrue(timer.schedule(() -> {}, 0, TimeUnit.MILLISECONDS).isCancelled(), "closed timer accepted a task");
+		assertTrue(future.isDone());
+	}
+
+	@Test
+	void manyConcurrentSchedulersAllRun() throws InterruptedException {
+		int threads = 8;
+		int perThread = 500;
+		CountDownLatch ran = new CountDownLatch(threads * perThread);
+		Thread[] schedulers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			schedulers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++)
+					timer.schedule(ran::countDown, i % 50, TimeUnit.MILLISECONDS);
+			});
+			schedulers[t].start();
+		}
+		for (Thread scheduler : schedulers)
+			scheduler.join();
+
+		assertTrue(ran.await(5, TimeUnit.SECONDS), ran.getCount() + " tasks never ran");
+	}
+
+	@Test
+	void tasksScheduledWhileClosingAreNotStranded() throws InterruptedException {
+		List<ScheduledFuture<?>> futures = new CopyOnWriteArrayList<>();
+		CountDownLatch started = new CountDownLatch(4);
+		Thread[] schedulers = new Thread[4];
+		for (int t = 0; t < schedulers.length; t++) {
+			schedulers[t] = new Thread(() -> {
+				started.countDown();
+				for (int i = 0; i < 2_000; i++)
+					futures.add(timer.schedule(() -> {}, 1, TimeUnit.HOURS));
+			});
+			schedulers[t].start();
+		}
+		started.await();
+		timer.close();
+		for (Thread scheduler : schedulers)
+			scheduler.join();
+
+		// the worker cancels whatever it drains on its way out; everything else must have been cancelled by schedule
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (futures.stream().anyMatch(future -> !future.isDone()) && System.nanoTime() < deadline)
+			Thread.sleep(10);
+		assertTrue(futures.stream().allMatch(ScheduledFuture::isCancelled), "a task scheduled during close was left pending");
+	}
+}
@@ -0,0 +1,95 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link HashedWheelTimer} against the scheduled executor previously used for effect timeouts,
+ * timed effect completers and keepalives.
+ * <p>
+ * Each operation schedules a 60 second timeout and cancels it, as happens for every effect which responds in time,
+ * while many other timeouts are outstanding.
+ */
+@Tag("benchmark")
+class TaskTimerBenchmark {
+	private static final int OUTSTANDING = 100_000;
+	private static final int THREADS = 4;
+	private static final int OPERATIONS = 250_000;
+	private static final int ROUNDS = 5;
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private record Result(double nanosPerOperation, long bytesPerOperation, long retainedAfterCancel) {
+	}
+
+	private static Result measure(Supplier<TaskTimer> factory, Supplier<Long> retained) throws InterruptedException {
+		TaskTimer timer = factory.get();
+		try {
+			List<ScheduledFuture<?>> background = new ArrayList<>(OUTSTANDING);
+			for (int i = 0; i < OUTSTANDING; i++)
+				background.add(timer.schedule(() -> {}, 60 + i % 60, TimeUnit.SECONDS));
+
+			double best = Double.MAX_VALUE;
+			LongAdder allocated = new LongAdder();
+			for (int round = 0; round < ROUNDS; round++) {
+				Thread[] workers = new Thread[THREADS];
+				allocated.reset();
+				long start = System.nanoTime();
+				for (int t = 0; t < THREADS; t++) {
+					workers[t] = new Thread(() -> {
+						long before = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+						for (int i = 0; i < OPERATIONS; i++)
+							timer.schedule(() -> {}, 60, TimeUnit.SECONDS).cancel(false);
+						allocated.add(THREAD_BEAN.getCurrentThreadAllocatedBytes() - before);
+					});
+					workers[t].start();
+				}
+				for (Thread worker : workers)
+					worker.join();
+				best = Math.min(best, (double) (System.nanoTime() - start) / (THREADS * OPERATIONS));
+			}
+			long retainedCount = retained.get();
+			for (ScheduledFuture<?> future : background)
+				future.cancel(false);
+			return new Result(best, allocated.sum() / (THREADS * OPERATIONS), retainedCount);
+		} finally {
+			timer.close();
+		}
+	}
+
+	@Test
+	void scheduleAndCancel() throws InterruptedException {
+		ScheduledExecutorService[] executor = new ScheduledExecutorService[1];
+		Result pool = measure(() -> {
+			// as created for CrowdControl#getTimedEffectPool
+			executor[0] = Executors.newScheduledThreadPool(20);
+			return new TaskTimer() {
+				@Override
+				public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+					return executor[0].schedule(task, delay, unit);
+				}
+
+				@Override
+				public void close() {
+					executor[0].shutdownNow();
+				}
+			};
+		}, () -> (long) ((ScheduledThreadPoolExecutor) executor[0]).getQueue().size());
+
+		Result hashed = measure(() -> new HashedWheelTimer(Runnable::run), () -> 0L);
+
+		System.out.printf("schedule + cancel with %,d outstanding timeouts, %d threads (best of %d rounds)%n", OUTSTANDING, THREADS, ROUNDS);
+		System.out.printf("  scheduled executor: %,8.1f ns/op  %,4d bytes/op  %,d cancelled tasks still queued%n", pool.nanosPerOperation(), pool.bytesPerOperation(), pool.retainedAfterCancel());
+		System.out.printf("  hashed wheel:       %,8.1f ns/op  %,4d bytes/op  (cancelled tasks are unlinked on their next tick)%n", hashed.nanosPerOperation(), hashed.bytesPerOperation());
+	}
+}
@@ -0,0 +1,58 @@
+package live.crowdcontrol.cc4j.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+	private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void burstIsAvailableImmediately() {
+		TokenBucket bucket = new TokenBucket(10, 5);
+		for (int i = 0; i < 5; i++)
+			assertEquals(0, bucket.reserve());
+	}
+
+	@Test
+	void reservationsBeyondBurstQueueUp() {
+		TokenBucket bucket = new TokenBucket(10, 1);
+		assertEquals(0, bucket.reserve());
+
+		// each further permit is due 100ms after the one before it
+		long first = bucket.reserve();
+		long second = bucket.reserve();
+		assertTrue(first > 90 * MILLI && first <= 100 * MILLI, "first delay was " + first);
+		assertTrue(second > 190 * MILLI && second <= 200 * MILLI, "second delay was " + second);
+	}
+
+	@Test
+	void refillsOverTime() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(100, 1);
+		assertEquals(0, bucket.reserve());
+		Thread.sleep(20);
+		assertEquals(0, bucket.reserve());
+	}
+
+	@Test
+	void refillIsCappedAtBurst() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(1000, 2);
+		Thread.sleep(20); // long enough to refill 20 permits, were it not capped
+		assertEquals(0, bucket.reserve());
+		assertEquals(0, bucket.reserve());
+		assertTrue(bucket.reserve() > 0);
+	}
+
+	@Test
+	void reportsRate() {
+		assertEquals(25, new TokenBucket(25, 1).getPermitsPerSecond(), 1e-9);
+	}
+
+	@Test
+	void rejectsInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+	}
+}
@@ -0,0 +1,121 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import com.fasterxml.jackson.core.JsonParser;
+import live.crowdcontrol.cc4j.CCEffect;
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CrowdControl;
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import live.crowdcontrol.cc4j.util.EventManager;
+import live.crowdcontrol.cc4j.websocket.payload.PublicEffectPayload;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+import static live.crowdcontrol.cc4j.websocket.ConnectedPlayer.JACKSON;
+
+/**
+ * Measures the time from an effect-request frame being decoded to {@link live.crowdcontrol.cc4j.CCEffect#onTrigger} starting,
+ * with the listener which hands the request to {@link CrowdControl#executeEffect} registered inline and on the event pool,
+ * along with how long each keeps the receiving thread from reading the next frame.
+ */
+@Tag("benchmark")
+class EffectRequestLatencyBenchmark {
+	private static final int WARMUP = 5_000;
+	private static final int ITERATIONS = 20_000;
+	/**
+	 * Time spent by the slow effect's supplier, standing in for an effect which is costly to construct.
+	 */
+	private static final long SLOW_SUPPLIER_NANOS = 50_000;
+
+	@TempDir
+	Path dataFolder;
+
+	private record Samples(long[] trigger, long[] receive) {
+	}
+
+	private static void spin(long nanos) {
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end)
+			Thread.onSpinWait();
+	}
+
+	private Samples measure(boolean inline, long supplierNanos) throws Exception {
+		CrowdControl cc = CrowdControlFixture.offline(dataFolder);
+		try {
+			ConnectedPlayer player = new ConnectedPlayer(UUID.randomUUID(), cc);
+			EventManager events = new EventManager(cc, player);
+			Semaphore triggered = new Semaphore(0);
+			long[] frameAt = new long[1];
+			long[] latency = new long[1];
+			CCEffect probe = (request, source) -> {
+				latency[0] = System.nanoTime() - frameAt[0];
+				triggered.release();
+			};
+			cc.addEffect("probe", () -> {
+				spin(supplierNanos);
+				return probe;
+			});
+			events.registerEventConsumer(CCEventType.EFFECT_REQUEST, payload -> cc.executeEffect(payload, player), 0, inline);
+
+			long[] trigger = new long[ITERATIONS];
+			long[] receive = new long[ITERATIONS];
+			for (int i = -WARMUP; i < ITERATIONS; i++) {
+				String frame = Frames.effectRequest(UUID.randomUUID(), "probe");
+				frameAt[0] = System.nanoTime();
+				SocketEvent event;
+				try (JsonParser parser = JACKSON.createParser(frame)) {
+					event = SocketEvent.read(JACKSON, parser);
+				}
+				events.dispatch(CCEventType.EFFECT_REQUEST, event.getPayload(PublicEffectPayload.class));
+				long received = System.nanoTime() - frameAt[0];
+				triggered.acquire();
+				// the semaphore orders the effect thread's write before this read
+				if (i >= 0) {
+					trigger[i] = latency[0];
+					receive[i] = received;
+				}
+			}
+			Arrays.sort(trigger);
+			Arrays.sort(receive);
+			return new Samples(trigger, receive);
+		} finally {
+			cc.close();
+		}
+	}
+
+	private static String summarize(long[] sorted) {
+		return String.format("p50 %,7.1f us  p90 %,7.1f us  p99 %,7.1f us",
+			sorted[sorted.length / 2] / 1000.0,
+			sorted[sorted.length * 9 / 10] / 1000.0,
+			sorted[sorted.length * 99 / 100] / 1000.0);
+	}
+
+	private void report(String name, long supplierNanos) throws Exception {
+		Samples pooled = measure(false, supplierNanos);
+		Samples inline = measure(true, supplierNanos);
+
+		System.out.printf("%s: effect-request frame -> onTrigger (%,d requests)%n", name, ITERATIONS);
+		System.out.println("  pooled listener: " + summarize(pooled.trigger()));
+		System.out.println("  inline listener: " + summarize(inline.trigger()));
+		System.out.printf("  median saved:    %,7.1f us%n", (pooled.trigger()[ITERATIONS / 2] - inline.trigger()[ITERATIONS / 2]) / 1000.0);
+		System.out.printf("%s: frame -> receiving thread free%n", name);
+		System.out.println("  pooled listener: " + summarize(pooled.receive()));
+		System.out.println("  inline listener: " + summarize(inline.receive()));
+	}
+
+	@Test
+	void frameToTrigger() throws Exception {
+		report("trivial effect", 0);
+	}
+
+	@Test
+	void frameToTriggerWithSlowSupplier() throws Exception {
+		// the supplier runs on the effect pool, so the inline listener should hold the receiving thread no longer than above
+		report(String.format("%,d us supplier", SLOW_SUPPLIER_NANOS / 1000), SLOW_SUPPLIER_NANOS);
+	}
+}
@@ -0,0 +1,25 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Sample messages as sent by the PubSub server.
+ */
+final class Frames {
+	static final @NotNull String TARGET = "ccuid-01j7cnrvpbh5aw45pwpe1vqvdw";
+
+	private Frames() {
+	}
+
+	static @NotNull String effectRequest(@NotNull UUID requestId, @NotNull String effectId) {
+		return "{\"domain\":\"pub\",\"type\":\"effect-request\",\"payload\":{"
+			+ "\"requestID\":\"" + requestId + "\",\"timestamp\":1718000000000,"
+			+ "\"effect\":{\"effectID\":\"" + effectId + "\",\"type\":\"game\",\"name\":{\"public\":\"Effect\",\"sort\":\"effect\"},"
+			+ "\"description\":\"Does something\",\"category\":[\"Misc\"],\"duration\":null},"
+			+ "\"target\":{\"ccUID\":\"" + TARGET + "\",\"name\":\"streamer\",\"profile\":\"twitch\",\"originID\":\"1\",\"image\":\"https://example.com/a.png\"},"
+			+ "\"requester\":{\"ccUID\":\"ccuid-01j7cnrvpbh5aw45pwpe1vqvdx\",\"name\":\"viewer\",\"profile\":\"twitch\",\"originID\":\"2\",\"image\":\"https://example.com/b.png\"},"
+			+ "\"anonymous\":false,\"quantity\":1}}";
+	}
+}
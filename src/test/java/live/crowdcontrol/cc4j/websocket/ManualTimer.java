@@ -0,0 +1,69 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.util.TaskTimer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TaskTimer} whose clock only moves when {@link #advance} is called,
+ * letting tests step through timeouts without waiting for them.
+ */
+final class ManualTimer implements TaskTimer {
+	private final @NotNull List<Task> tasks = new ArrayList<>();
+	private long now = 0;
+
+	@Override
+	public synchronized @NotNull ScheduledFuture<?> schedule(@NotNull Runnable task, long delay, @NotNull TimeUnit unit) {
+		Task scheduled = new Task(task, now + unit.toNanos(delay));
+		tasks.add(scheduled);
+		return scheduled;
+	}
+
+	/**
+	 * Moves the clock forward, running every task which falls due on the calling thread.
+	 *
+	 * @param time amount of time to advance by
+	 * @param unit unit of the time
+	 */
+	void advance(long time, @NotNull TimeUnit unit) {
+		List<Task> due = new ArrayList<>();
+		synchronized (this) {
+			now += unit.toNanos(time);
+			tasks.removeIf(task -> {
+				if (task.deadline > now) return task.isDone();
+				due.add(task);
+				return true;
+			});
+		}
+		due.sort(null);
+		for (Task task : due)
+			task.run();
+	}
+
+	private final class Task extends FutureTask<Void> implements ScheduledFuture<Void> {
+		private final long deadline;
+
+		private Task(@NotNull Runnable task, long deadline) {
+			super(task, null);
+			this.deadline = deadline;
+		}
+
+		@Override
+		public long getDelay(@NotNull TimeUnit unit) {
+			synchronized (ManualTimer.this) {
+				return unit.convert(deadline - now, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		public int compareTo(@NotNull Delayed o) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+}
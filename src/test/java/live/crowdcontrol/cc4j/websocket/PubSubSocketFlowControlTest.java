@@ -0,0 +1,71 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PubSubSocketFlowControlTest extends CrowdControlFixture {
+	private static final int HIGH = 4;
+	private static final int LOW = 1;
+	StubWebSocket ws = new StubWebSocket();
+	Semaphore handling = new Semaphore(0);
+	PubSubSocket socket;
+
+	@BeforeEach
+	void setUp() {
+		cc.getSocketPool().setInboundWatermarks(HIGH, LOW);
+		socket = new PubSubSocket(cc, false);
+		ConnectedPlayer player = newPlayer();
+		// each request is held by a pool listener until the test lets it finish
+		player.getEventManager().registerEventConsumer(CCEventType.EFFECT_REQUEST, request -> handling.acquireUninterruptibly(), 0, false);
+		socket.attach(player);
+		socket.onOpen(ws);
+	}
+
+	@AfterEach
+	void releaseListeners() {
+		handling.release(Integer.MAX_VALUE / 2);
+	}
+
+	private void receive() {
+		socket.onText(ws, Frames.effectRequest(UUID.randomUUID(), "effect"), true);
+	}
+
+	private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) fail(message);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	void readingPausesAtTheHighWatermarkAndResumesAtTheLow() throws InterruptedException {
+		assertEquals(HIGH, ws.requested.get());
+
+		for (int i = 0; i < HIGH; i++)
+			receive();
+		assertEquals(HIGH, socket.backlog.get());
+		assertTrue(socket.paused);
+		assertEquals(HIGH, ws.requested.get(), "requested more frames with a full backlog");
+
+		// draining to just above the low watermark is not enough to resume
+		handling.release(HIGH - LOW - 1);
+		await(() -> socket.backlog.get() == LOW + 1, "handled events were not counted");
+		assertTrue(socket.paused);
+		assertEquals(HIGH, ws.requested.get());
+
+		handling.release(1);
+		// the backlog still holds LOW events, so only the rest of the high watermark is requested
+		await(() -> ws.requested.get() == HIGH + HIGH - LOW, "reading never resumed");
+		assertFalse(socket.paused);
+	}
+}
@@ -0,0 +1,90 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.WebSocket;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PubSubSocketReassemblyTest extends CrowdControlFixture {
+	StubWebSocket ws = new StubWebSocket();
+	PubSubSocket socket;
+	ConnectedPlayer player;
+	List<String> received = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		socket = new PubSubSocket(cc, false);
+		player = newPlayer();
+		player.getEventManager().registerEventConsumer(CCEventType.EFFECT_REQUEST, request -> received.add(request.getEffect().getEffectId()), 0, true);
+		socket.attach(player);
+	}
+
+	/**
+	 * Delivers a message split into fragments, cycling through the kinds of character sequence the client may pass.
+	 */
+	private void receive(String message, int fragments) {
+		int size = Math.ceilDiv(message.length(), fragments);
+		for (int i = 0; i < fragments; i++) {
+			String fragment = message.substring(Math.min(i * size, message.length()), Math.min((i + 1) * size, message.length()));
+			CharSequence data = switch (i % 3) {
+				case 0 -> CharBuffer.wrap(fragment.toCharArray());
+				case 1 -> fragment;
+				default -> new StringBuilder(fragment);
+			};
+			socket.onText(ws, data, i == fragments - 1);
+		}
+	}
+
+	@Test
+	void fragmentsAreReassembled() {
+		receive(Frames.effectRequest(UUID.randomUUID(), "first"), 7);
+		receive(Frames.effectRequest(UUID.randomUUID(), "second"), 1);
+		assertEquals(List.of("first", "second"), received);
+	}
+
+	@Test
+	void bufferGrowsAndIsReused() {
+		String effectId = "x".repeat(5_000);
+		receive(Frames.effectRequest(UUID.randomUUID(), effectId), 4);
+		assertEquals(List.of(effectId), received);
+		char[] grown = socket.pendingText;
+		assertTrue(grown.length > 5_000);
+
+		receive(Frames.effectRequest(UUID.randomUUID(), "small"), 2);
+		assertEquals(List.of(effectId, "small"), received);
+		assertSame(grown, socket.pendingText);
+	}
+
+	@Test
+	void oversizeMessageIsDiscardedAndTheNextOneReadCleanly() {
+		cc.getSocketPool().setMaxMessageSize(2_000);
+		receive(Frames.effectRequest(UUID.randomUUID(), "x".repeat(5_000)), 5);
+		assertTrue(received.isEmpty());
+		assertTrue(socket.pendingText.length <= 2_000, "oversize message was buffered");
+
+		receive(Frames.effectRequest(UUID.randomUUID(), "after"), 3);
+		assertEquals(List.of("after"), received);
+	}
+
+	@Test
+	void disconnectDiscardsPartialMessage() {
+		String message = Frames.effectRequest(UUID.randomUUID(), "interrupted");
+		socket.onText(ws, message.substring(0, message.length() / 2), false);
+
+		// with no players attached, the socket does not try to reconnect
+		socket.detach(player);
+		socket.onClose(ws, WebSocket.NORMAL_CLOSURE, "");
+		socket.attach(player);
+
+		receive(Frames.effectRequest(UUID.randomUUID(), "fresh"), 2);
+		assertEquals(List.of("fresh"), received);
+	}
+}
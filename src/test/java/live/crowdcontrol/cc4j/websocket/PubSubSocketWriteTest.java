@@ -0,0 +1,88 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static live.crowdcontrol.cc4j.websocket.ConnectedPlayer.JACKSON;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PubSubSocketWriteTest extends CrowdControlFixture {
+	StubWebSocket ws;
+	PubSubSocket socket;
+
+	@BeforeEach
+	void setUp() {
+		ws = new StubWebSocket();
+		socket = new PubSubSocket(cc, true);
+	}
+
+	@Test
+	void concurrentSendsAreWrittenOneAtATimeInOrder() throws Exception {
+		int threads = 4;
+		int perThread = 500;
+		ws.holdWrites = true;
+		socket.onOpen(ws);
+
+		// writes complete on another thread, as they do in the HTTP client
+		AtomicBoolean sending = new AtomicBoolean(true);
+		Thread completer = new Thread(() -> {
+			while (sending.get()) {
+				if (ws.completeWrites() == 0) Thread.yield();
+			}
+		});
+		completer.start();
+
+		List<CompletableFuture<String>> writes = new CopyOnWriteArrayList<>();
+		Thread[] senders = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			String action = "sender-" + t;
+			senders[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++)
+					writes.add(socket.send(new SocketRequest(action, i)));
+			});
+			senders[t].start();
+		}
+		for (Thread sender : senders)
+			sender.join();
+		CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+		sending.set(false);
+		completer.join();
+
+		assertEquals(1, ws.maxInFlight.get(), "more than one write was in flight");
+		assertEquals(threads * perThread, ws.sent.size());
+		int[] next = new int[threads];
+		for (String message : ws.sent) {
+			JsonNode node = JACKSON.readTree(message);
+			int sender = Integer.parseInt(node.get("action").asText().substring("sender-".length()));
+			assertEquals(next[sender]++, node.get("data").asInt(), "sender " + sender + " was written out of order");
+		}
+	}
+
+	@Test
+	void synchronousWritesDrainOnTheSendingThread() throws Exception {
+		socket.onOpen(ws);
+		CompletableFuture<String> last = null;
+		for (int i = 0; i < 10_000; i++)
+			last = socket.send(new SocketRequest("message", i));
+
+		assertEquals("message", JACKSON.readTree(last.get(5, TimeUnit.SECONDS)).get("action").asText());
+		assertEquals(10_000, ws.sent.size());
+	}
+
+	@Test
+	void sendingBeforeConnectingFails() {
+		CompletableFuture<String> write = socket.send(new SocketRequest("message"));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+		assertTrue(ws.sent.isEmpty());
+	}
+}
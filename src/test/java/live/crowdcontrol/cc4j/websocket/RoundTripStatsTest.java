@@ -0,0 +1,57 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundTripStatsTest {
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	@Test
+	void emptyStatsHaveNoSamples() {
+		assertEquals(0, RoundTripStats.EMPTY.samples());
+		assertNull(RoundTripStats.EMPTY.average());
+		assertNull(RoundTripStats.EMPTY.lastPongAt());
+	}
+
+	@Test
+	void firstSampleSetsEverything() {
+		Duration sample = Duration.ofMillis(40);
+		RoundTripStats stats = RoundTripStats.EMPTY.with(sample, NOW);
+
+		assertEquals(1, stats.samples());
+		assertEquals(sample, stats.last());
+		assertEquals(sample, stats.average());
+		assertEquals(sample, stats.min());
+		assertEquals(sample, stats.max());
+		assertEquals(NOW, stats.lastPongAt());
+	}
+
+	@Test
+	void averageMovesAnEighthTowardsEachSample() {
+		RoundTripStats stats = RoundTripStats.EMPTY
+			.with(Duration.ofMillis(80), NOW)
+			.with(Duration.ofMillis(160), NOW.plusSeconds(15));
+
+		assertEquals(2, stats.samples());
+		assertEquals(Duration.ofMillis(90), stats.average());
+		assertEquals(Duration.ofMillis(160), stats.last());
+		assertEquals(NOW.plusSeconds(15), stats.lastPongAt());
+	}
+
+	@Test
+	void tracksExtremes() {
+		RoundTripStats stats = RoundTripStats.EMPTY
+			.with(Duration.ofMillis(50), NOW)
+			.with(Duration.ofMillis(10), NOW)
+			.with(Duration.ofMillis(90), NOW)
+			.with(Duration.ofMillis(30), NOW);
+
+		assertEquals(Duration.ofMillis(10), stats.min());
+		assertEquals(Duration.ofMillis(90), stats.max());
+		assertEquals(Duration.ofMillis(30), stats.last());
+	}
+}
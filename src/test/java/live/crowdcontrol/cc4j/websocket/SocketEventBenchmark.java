@@ -0,0 +1,71 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import live.crowdcontrol.cc4j.websocket.payload.PublicEffectPayload;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import static live.crowdcontrol.cc4j.websocket.ConnectedPlayer.JACKSON;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the allocations of decoding an effect request with {@link SocketEvent#read}
+ * against the previous approach of reading a {@link JsonNode} tree and binding the payload from it.
+ */
+@Tag("benchmark")
+class SocketEventBenchmark {
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 100_000;
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private interface Decoder {
+		Object decode(char[] message) throws IOException;
+	}
+
+	private static Object streaming(char[] message) throws IOException {
+		try (JsonParser parser = JACKSON.createParser(message)) {
+			return SocketEvent.read(JACKSON, parser).payload;
+		}
+	}
+
+	private static Object tree(char[] message) throws IOException {
+		// String construction and double parse of the previous decoder
+		JsonNode event = JACKSON.readTree(new String(message));
+		event.get("domain").asText();
+		event.get("type").asText();
+		return JACKSON.treeToValue(event.get("payload"), PublicEffectPayload.class);
+	}
+
+	private static long[] measure(Decoder decoder, char[] message) throws IOException {
+		for (int i = 0; i < WARMUP; i++)
+			decoder.decode(message);
+		long thread = Thread.currentThread().threadId();
+		long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+			decoder.decode(message);
+		long elapsed = System.nanoTime() - start;
+		long bytes = THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+		return new long[]{bytes / ITERATIONS, elapsed / ITERATIONS};
+	}
+
+	@Test
+	void effectRequestAllocations() throws IOException {
+		char[] message = Frames.effectRequest(UUID.randomUUID(), "kill").toCharArray();
+
+		long[] tree = measure(SocketEventBenchmark::tree, message);
+		long[] streaming = measure(SocketEventBenchmark::streaming, message);
+
+		System.out.printf("effect-request decode (%d chars)%n", message.length);
+		System.out.printf("  tree:      %,6d bytes/msg  %,6d ns/msg%n", tree[0], tree[1]);
+		System.out.printf("  streaming: %,6d bytes/msg  %,6d ns/msg%n", streaming[0], streaming[1]);
+		System.out.printf("  allocation drop: %.1f%%%n", 100.0 * (tree[0] - streaming[0]) / tree[0]);
+		assertTrue(streaming[0] < tree[0], "streaming decoder should allocate less than the tree decoder");
+	}
+}
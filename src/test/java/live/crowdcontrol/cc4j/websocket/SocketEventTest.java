@@ -0,0 +1,72 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import com.fasterxml.jackson.core.JsonParser;
+import live.crowdcontrol.cc4j.websocket.payload.ApplicationAuthCodePayload;
+import live.crowdcontrol.cc4j.websocket.payload.PublicEffectPayload;
+import live.crowdcontrol.cc4j.websocket.payload.SubscriptionResultPayload;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+import static live.crowdcontrol.cc4j.websocket.ConnectedPlayer.JACKSON;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocketEventTest {
+	private static SocketEvent read(String message) throws IOException {
+		try (JsonParser parser = JACKSON.createParser(message)) {
+			return SocketEvent.read(JACKSON, parser);
+		}
+	}
+
+	@Test
+	void bindsEffectRequestPayload() throws IOException {
+		UUID requestId = UUID.randomUUID();
+		SocketEvent event = read(Frames.effectRequest(requestId, "kill"));
+
+		assertEquals("pub", event.domain);
+		assertEquals("effect-request", event.type);
+		PublicEffectPayload payload = event.getPayload(PublicEffectPayload.class);
+		assertNotNull(payload);
+		assertEquals(requestId, payload.getRequestId());
+		assertEquals("kill", payload.getEffect().getEffectId());
+		assertEquals("game", payload.getEffect().getType());
+		assertEquals(Frames.TARGET, payload.getTarget().getId());
+	}
+
+	@Test
+	void bindsPayloadWhichPrecedesType() throws IOException {
+		SocketEvent event = read("{\"payload\":{\"success\":[\"pub/a\"],\"failure\":[]},\"domain\":\"direct\",\"type\":\"subscription-result\"}");
+
+		assertEquals("subscription-result", event.type);
+		SubscriptionResultPayload payload = event.getPayload(SubscriptionResultPayload.class);
+		assertNotNull(payload);
+		assertEquals(Set.of("pub/a"), payload.getSuccess());
+		assertTrue(payload.getFailure().isEmpty());
+	}
+
+	@Test
+	void skipsUnknownFieldsAndTypes() throws IOException {
+		SocketEvent event = read("{\"domain\":\"pub\",\"extra\":{\"nested\":[1,2,{\"a\":null}]},\"type\":\"something-new\",\"payload\":{\"deep\":[[[]]]}}");
+
+		assertEquals("pub", event.domain);
+		assertEquals("something-new", event.type);
+		assertNull(event.payload);
+	}
+
+	@Test
+	void bindsAuthCode() throws IOException {
+		SocketEvent event = read("{\"domain\":\"direct\",\"type\":\"application-auth-code\",\"payload\":{\"code\":\"ABC123\",\"url\":\"https://example.com\",\"qrCode\":null}}");
+
+		ApplicationAuthCodePayload payload = event.getPayload(ApplicationAuthCodePayload.class);
+		assertNotNull(payload);
+		assertEquals("ABC123", payload.code());
+		assertNull(payload.qrCode());
+	}
+
+	@Test
+	void rejectsNonObjectMessages() {
+		assertThrows(IOException.class, () -> read("[]"));
+	}
+}
@@ -0,0 +1,131 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.CCEventType;
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocketMigrationTest extends CrowdControlFixture {
+	ManualTimer timer = new ManualTimer();
+	StubWebSocket sourceWs = new StubWebSocket();
+	StubWebSocket replacementWs = new StubWebSocket();
+	PubSubSocket source;
+	PubSubSocket replacement;
+	SocketMigration migration;
+	ConnectedPlayer alice;
+	List<UUID> requests = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		cc.setTimer(timer);
+		source = new PubSubSocket(cc, false);
+		// the replacement is opened by hand rather than over the network
+		replacement = new PubSubSocket(cc, false) {
+			@Override
+			public void connect() {
+			}
+		};
+		source.onOpen(sourceWs);
+		alice = newPlayer();
+		alice.getEventManager().registerEventConsumer(CCEventType.EFFECT_REQUEST, request -> requests.add(request.getRequestId()), 0, true);
+		source.attach(alice);
+		alice.socket = source;
+
+		migration = new SocketMigration(cc, cc.getSocketPool(), source, replacement);
+		migration.start();
+	}
+
+	private static void receive(PubSubSocket socket, UUID requestId) {
+		socket.onText(null, Frames.effectRequest(requestId, "effect"), true);
+	}
+
+	@Test
+	void requestReceivedOnBothSocketsIsHandledOnce() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		receive(source, first);
+		receive(replacement, first);
+		receive(replacement, second);
+		receive(source, second);
+
+		assertEquals(List.of(first, second), requests);
+	}
+
+	@Test
+	void switchesOverOnceTheReplacementIsReady() {
+		replacement.onOpen(replacementWs);
+
+		assertEquals(replacement, migration.getResult().getNow(null));
+		assertSame(replacement, alice.getSocket());
+		assertEquals(Set.of(alice), replacement.getPlayers());
+		assertTrue(source.getPlayers().isEmpty());
+		assertTrue(source.isClosed());
+		assertTrue(sourceWs.closeSent);
+	}
+
+	@Test
+	void duplicatesAreFilteredForAGracePeriodAfterSwitchingOver() {
+		UUID early = UUID.randomUUID();
+		receive(source, early);
+		replacement.onOpen(replacementWs);
+
+		// a request the source received just before switching over may still arrive on the replacement
+		timer.advance(9, TimeUnit.SECONDS);
+		receive(replacement, early);
+		assertEquals(List.of(early), requests);
+
+		timer.advance(1, TimeUnit.SECONDS);
+		assertNull(replacement.migration);
+		UUID late = UUID.randomUUID();
+		receive(replacement, late);
+		assertEquals(List.of(early, late), requests);
+	}
+
+	@Test
+	void timingOutAbandonsTheReplacement() {
+		timer.advance(29, TimeUnit.SECONDS);
+		assertFalse(migration.isFinished());
+
+		timer.advance(1, TimeUnit.SECONDS);
+		assertAbandoned();
+	}
+
+	@Test
+	void replacementDisconnectingAbandonsTheMigration() {
+		replacement.onClose(null, 1006, "");
+		assertAbandoned();
+	}
+
+	@Test
+	void abortingAfterSwitchingOverDoesNothing() {
+		replacement.onOpen(replacementWs);
+		migration.abort("too late");
+
+		assertFalse(migration.getResult().isCompletedExceptionally());
+		assertSame(replacement, alice.getSocket());
+		assertFalse(replacement.isClosed());
+	}
+
+	private void assertAbandoned() {
+		CompletableFuture<PubSubSocket> result = migration.getResult();
+		assertTrue(migration.isFinished());
+		assertThrows(CompletionException.class, result::join);
+		assertTrue(replacement.isClosed());
+		assertTrue(replacement.getPlayers().isEmpty());
+		assertNull(source.migration);
+		// the source carries on serving its players
+		assertSame(source, alice.getSocket());
+		assertEquals(Set.of(alice), source.getPlayers());
+		assertFalse(source.isClosed());
+	}
+}
@@ -0,0 +1,72 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import live.crowdcontrol.cc4j.CrowdControlFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocketPoolTest extends CrowdControlFixture {
+	SocketPool pool;
+	PubSubSocket socket;
+	ConnectedPlayer alice;
+	ConnectedPlayer bob;
+
+	@BeforeEach
+	void setUp() {
+		pool = cc.getSocketPool();
+		socket = new PubSubSocket(cc, true);
+		alice = newPlayer();
+		bob = newPlayer();
+	}
+
+	@Test
+	void releasingTheLastPlayerShutsTheSocketDown() {
+		socket.attach(alice);
+		socket.attach(bob);
+
+		pool.release(alice, socket).join();
+		assertFalse(socket.isClosed());
+		assertEquals(Set.of(bob), socket.getPlayers());
+
+		pool.release(bob, socket).join();
+		assertTrue(socket.isClosed());
+	}
+
+	@Test
+	void staleReleaseLeavesTheSocketAlone() {
+		socket.attach(bob);
+
+		// alice was never attached, as if they had already been moved to another socket
+		pool.release(alice, socket).join();
+		assertFalse(socket.isClosed());
+		assertEquals(Set.of(bob), socket.getPlayers());
+
+		pool.release(bob, socket).join();
+		pool.release(bob, socket).join();
+		assertTrue(socket.isClosed());
+	}
+
+	@Test
+	void closingAPlayerWritesItsQueuedMessagesBeforeTheCloseFrame() throws Exception {
+		StubWebSocket ws = new StubWebSocket();
+		ws.holdWrites = true;
+		socket.onOpen(ws);
+		socket.attach(alice);
+		alice.socket = socket;
+
+		// stands in for the batch of responses flushed as the player closes
+		socket.send(new SocketRequest("final"));
+		CompletableFuture<?> closed = alice.close();
+		assertFalse(ws.closeSent, "close frame was sent while a write was in flight");
+
+		assertEquals(1, ws.completeWrites());
+		closed.get(5, TimeUnit.SECONDS);
+		assertTrue(ws.closeSent);
+		assertEquals(1, ws.sent.size());
+	}
+}
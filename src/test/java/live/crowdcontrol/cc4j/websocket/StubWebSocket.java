@@ -0,0 +1,107 @@
+package live.crowdcontrol.cc4j.websocket;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link WebSocket} which records what is written to it instead of touching the network.
+ * <p>
+ * Writes complete immediately unless {@link #holdWrites} is set,
+ * in which case they stay in flight until {@link #completeWrites()} is called.
+ */
+final class StubWebSocket implements WebSocket {
+	final @NotNull List<String> sent = new CopyOnWriteArrayList<>();
+	final @NotNull AtomicLong requested = new AtomicLong();
+	final @NotNull AtomicInteger pings = new AtomicInteger();
+	final @NotNull AtomicInteger maxInFlight = new AtomicInteger();
+	volatile boolean holdWrites = false;
+	volatile boolean closeSent = false;
+	private final @NotNull Queue<CompletableFuture<WebSocket>> heldWrites = new ConcurrentLinkedQueue<>();
+	private final @NotNull AtomicInteger inFlight = new AtomicInteger();
+
+	@Override
+	public CompletableFuture<WebSocket> sendText(CharSequence data, boolean last) {
+		int writing = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(writing, Math::max);
+		sent.add(data.toString());
+		if (!holdWrites) {
+			inFlight.decrementAndGet();
+			return CompletableFuture.completedFuture(this);
+		}
+		CompletableFuture<WebSocket> write = new CompletableFuture<>();
+		heldWrites.add(write);
+		return write;
+	}
+
+	/**
+	 * Completes every write which is currently in flight.
+	 *
+	 * @return number of writes completed
+	 */
+	int completeWrites() {
+		int completed = 0;
+		CompletableFuture<WebSocket> write;
+		while ((write = heldWrites.poll()) != null) {
+			inFlight.decrementAndGet();
+			write.complete(this);
+			completed++;
+		}
+		return completed;
+	}
+
+	@Override
+	public CompletableFuture<WebSocket> sendBinary(ByteBuffer data, boolean last) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public CompletableFuture<WebSocket> sendPing(ByteBuffer message) {
+		pings.incrementAndGet();
+		return CompletableFuture.completedFuture(this);
+	}
+
+	@Override
+	public CompletableFuture<WebSocket> sendPong(ByteBuffer message) {
+		return CompletableFuture.completedFuture(this);
+	}
+
+	@Override
+	public CompletableFuture<WebSocket> sendClose(int statusCode, String reason) {
+		closeSent = true;
+		return CompletableFuture.completedFuture(this);
+	}
+
+	@Override
+	public void request(long n) {
+		requested.addAndGet(n);
+	}
+
+	@Override
+	public String getSubprotocol() {
+		return "";
+	}
+
+	@Override
+	public boolean isOutputClosed() {
+		return closeSent;
+	}
+
+	@Override
+	public boolean isInputClosed() {
+		return false;
+	}
+
+	@Override
+	public void abort() {
+		closeSent = true;
+	}
+}